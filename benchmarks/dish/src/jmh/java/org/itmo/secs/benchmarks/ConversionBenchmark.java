@@ -0,0 +1,78 @@
+package org.itmo.secs.benchmarks;
+
+import org.itmo.secs.controllers.DishController;
+import org.itmo.secs.model.dto.DishCreateDto;
+import org.itmo.secs.model.dto.DishDto;
+import org.itmo.secs.model.dto.ItemCreateDto;
+import org.itmo.secs.model.dto.ItemDto;
+import org.itmo.secs.model.entities.Dish;
+import org.itmo.secs.model.entities.Item;
+import org.itmo.secs.utils.conf.PagingConf;
+import org.itmo.secs.utils.converters.DishCreateDtoToDishConverter;
+import org.itmo.secs.utils.converters.DishToDishDtoConverter;
+import org.itmo.secs.utils.converters.ItemCreateDtoToItemConverter;
+import org.itmo.secs.utils.converters.ItemToItemDtoConverter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+
+import java.util.concurrent.TimeUnit;
+
+// The converters as the controllers call them: through the ConversionService, and
+// DishController.convertDishToDishDto on top of it. directDishToDishDto is the
+// baseline without the ConversionService lookup
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ConversionBenchmark {
+    private ConversionService conversionService;
+    private DishController dishController;
+    private DishToDishDtoConverter dishToDishDtoConverter;
+
+    private Dish dish;
+    private Item item;
+    private DishCreateDto dishCreateDto;
+    private ItemCreateDto itemCreateDto;
+
+    @Setup
+    public void setUp() {
+        DefaultConversionService defaultConversionService = new DefaultConversionService();
+        dishToDishDtoConverter = new DishToDishDtoConverter();
+        defaultConversionService.addConverter(dishToDishDtoConverter);
+        defaultConversionService.addConverter(new DishCreateDtoToDishConverter());
+        defaultConversionService.addConverter(new ItemToItemDtoConverter());
+        defaultConversionService.addConverter(new ItemCreateDtoToItemConverter());
+        conversionService = defaultConversionService;
+        dishController = new DishController(null, conversionService, new PagingConf(50, 10, 100), null);
+
+        dish = new Dish(1L, "Борщ", 482, 54, 21, 18);
+        item = new Item(1L, "Свекла", 43, 10, 2, 0);
+        dishCreateDto = new DishCreateDto("Борщ");
+        itemCreateDto = new ItemCreateDto("Свекла", 43, 10, 2, 0);
+    }
+
+    @Benchmark
+    public DishDto dishToDishDto() {
+        return dishController.convertDishToDishDto(dish);
+    }
+
+    @Benchmark
+    public DishDto directDishToDishDto() {
+        return dishToDishDtoConverter.convert(dish);
+    }
+
+    @Benchmark
+    public Dish dishCreateDtoToDish() {
+        return conversionService.convert(dishCreateDto, Dish.class);
+    }
+
+    @Benchmark
+    public ItemDto itemToItemDto() {
+        return conversionService.convert(item, ItemDto.class);
+    }
+
+    @Benchmark
+    public Item itemCreateDtoToItem() {
+        return conversionService.convert(itemCreateDto, Item.class);
+    }
+}
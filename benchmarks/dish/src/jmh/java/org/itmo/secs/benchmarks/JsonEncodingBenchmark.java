@@ -0,0 +1,55 @@
+package org.itmo.secs.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.itmo.secs.model.dto.DishDto;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+// A page of dishes written the way the find endpoints used to (JsonConvService:
+// String first, then bytes) against the shared Jackson codec they use now
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonEncodingBenchmark {
+    @Param({"10", "50"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+    private Jackson2JsonEncoder encoder;
+    private ResolvableType pageType;
+    private List<DishDto> page;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        encoder = new Jackson2JsonEncoder(objectMapper);
+        pageType = ResolvableType.forClassWithGenerics(List.class, DishDto.class);
+        page = LongStream.rangeClosed(1, pageSize)
+                .mapToObj(id -> new DishDto(id, "Борщ " + id, 482, 54, 21, 18))
+                .toList();
+    }
+
+    @Benchmark
+    public byte[] viaString() throws Exception {
+        return objectMapper.writeValueAsString(page).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public int viaCodec() {
+        DataBuffer buffer = encoder.encodeValue(page, DefaultDataBufferFactory.sharedInstance, pageType, MediaType.APPLICATION_JSON, null);
+        int size = buffer.readableByteCount();
+        DataBufferUtils.release(buffer);
+        return size;
+    }
+}
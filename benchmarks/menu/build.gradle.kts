@@ -0,0 +1,42 @@
+plugins {
+    id("java")
+    id("io.spring.dependency-management") version "1.1.4"
+    id("me.champeau.jmh") version "0.7.2"
+}
+
+group = "org.itmo.secs"
+version = "1.0"
+
+java {
+    toolchain {
+        languageVersion = JavaLanguageVersion.of(21)
+    }
+}
+
+repositories {
+    mavenCentral()
+}
+
+dependencies {
+    jmh(project(":menu-service"))
+    jmh("org.springframework.boot:spring-boot-starter-webflux")
+    jmh("org.springframework.boot:spring-boot-starter-data-r2dbc")
+    jmh("io.micrometer:micrometer-core")
+    jmh("com.fasterxml.jackson.dataformat:jackson-dataformat-smile")
+}
+
+dependencyManagement {
+    imports {
+        mavenBom("org.springframework.boot:spring-boot-dependencies:3.5.6")
+        mavenBom("org.springframework.cloud:spring-cloud-dependencies:2025.0.0")
+    }
+}
+
+jmh {
+    warmupIterations = 3
+    iterations = 5
+    fork = 1
+    profilers = listOf("gc")
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file("results/jmh/results.json")
+}
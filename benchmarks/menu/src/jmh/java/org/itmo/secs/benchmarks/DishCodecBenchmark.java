@@ -0,0 +1,60 @@
+package org.itmo.secs.benchmarks;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.itmo.secs.model.dto.DishDto;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+// Cost of the /dish/batch payload as seen by menu-service: JSON against Smile
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DishCodecBenchmark {
+    @Param({"1", "100"})
+    private int batchSize;
+
+    private ObjectMapper jsonMapper;
+    private ObjectMapper smileMapper;
+    private JavaType listType;
+    private List<DishDto> dishes;
+    private byte[] json;
+    private byte[] smile;
+
+    @Setup
+    public void setUp() throws IOException {
+        jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+        smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+        listType = jsonMapper.getTypeFactory().constructCollectionType(List.class, DishDto.class);
+        dishes = LongStream.rangeClosed(1, batchSize)
+                .mapToObj(id -> new DishDto(id, "Борщ " + id, 54, 21, 18, 482))
+                .toList();
+        json = jsonMapper.writeValueAsBytes(dishes);
+        smile = smileMapper.writeValueAsBytes(dishes);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws IOException {
+        return jsonMapper.writeValueAsBytes(dishes);
+    }
+
+    @Benchmark
+    public byte[] encodeSmile() throws IOException {
+        return smileMapper.writeValueAsBytes(dishes);
+    }
+
+    @Benchmark
+    public List<DishDto> decodeJson() throws IOException {
+        return jsonMapper.readValue(json, listType);
+    }
+
+    @Benchmark
+    public List<DishDto> decodeSmile() throws IOException {
+        return smileMapper.readValue(smile, listType);
+    }
+}
@@ -0,0 +1,122 @@
+package org.itmo.secs.benchmarks;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.itmo.secs.client.DishCache;
+import org.itmo.secs.client.DishLoader;
+import org.itmo.secs.client.DishServiceClient;
+import org.itmo.secs.client.UserLoader;
+import org.itmo.secs.client.UserServiceClient;
+import org.itmo.secs.controllers.MenuController;
+import org.itmo.secs.model.dto.DishDto;
+import org.itmo.secs.model.dto.MenuCreateDto;
+import org.itmo.secs.model.dto.MenuDto;
+import org.itmo.secs.model.entities.Menu;
+import org.itmo.secs.model.entities.MenuDishes;
+import org.itmo.secs.model.entities.enums.Meal;
+import org.itmo.secs.repositories.MenuDishesRepository;
+import org.itmo.secs.repositories.MenuRepository;
+import org.itmo.secs.services.MenuDishesService;
+import org.itmo.secs.services.MenuService;
+import org.itmo.secs.utils.conf.PagingConf;
+import org.itmo.secs.utils.converters.MenuCreateDtoToMenuConvertor;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.LongStream;
+
+// MenuController.reactiveConvertMenuToMenuDto over in-memory repositories and a stubbed
+// DishServiceClient. The dish cache expires immediately, so every call goes through
+// DishLoader batching and the client, as on a cold cache
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MenuConversionBenchmark {
+    @Param({"1", "10", "50"})
+    private int dishCount;
+
+    private MenuController menuController;
+    private ConversionService conversionService;
+    private Menu menu;
+    private MenuCreateDto menuCreateDto;
+
+    @Setup
+    public void setUp() {
+        menu = new Menu();
+        menu.setId(1L);
+        menu.setDate(LocalDate.of(2024, 1, 15));
+        menu.setUserId(1L);
+        menu.setMeal(Meal.BREAKFAST);
+        menuCreateDto = new MenuCreateDto("breakfast", 1L, LocalDate.of(2024, 1, 15));
+
+        List<MenuDishes> menuDishes = LongStream.rangeClosed(1, dishCount)
+                .mapToObj(dishId -> new MenuDishes(dishId, 1L, dishId))
+                .toList();
+        MenuRepository menuRepository = stub(MenuRepository.class, "findById", args -> Mono.just(menu));
+        MenuDishesRepository menuDishesRepository = stub(MenuDishesRepository.class, "findAllByMenuId", args -> Flux.fromIterable(menuDishes));
+        UserServiceClient userServiceClient = stub(UserServiceClient.class, null, null);
+
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        DishCache dishCache = new DishCache(meterRegistry, 10_000, Duration.ZERO, Duration.ZERO);
+        DishLoader dishLoader = new DishLoader(new StubDishServiceClient(), dishCache, meterRegistry, 100);
+        UserLoader userLoader = new UserLoader(userServiceClient, meterRegistry, 100, Duration.ofSeconds(30), Duration.ofSeconds(5));
+        MenuService menuService = new MenuService(menuRepository, new MenuDishesService(menuDishesRepository), userLoader, dishLoader);
+
+        DefaultConversionService defaultConversionService = new DefaultConversionService();
+        defaultConversionService.addConverter(new MenuCreateDtoToMenuConvertor());
+        conversionService = defaultConversionService;
+        menuController = new MenuController(menuService, conversionService, new PagingConf(50, 10));
+    }
+
+    @Benchmark
+    public MenuDto reactiveConvertMenuToMenuDto() {
+        return menuController.reactiveConvertMenuToMenuDto(menu).block();
+    }
+
+    @Benchmark
+    public Menu menuCreateDtoToMenu() {
+        return conversionService.convert(menuCreateDto, Menu.class);
+    }
+
+    private static DishDto dish(Long dishId) {
+        return new DishDto(dishId, "Борщ " + dishId, 54, 21, 18, 482);
+    }
+
+    private static class StubDishServiceClient implements DishServiceClient {
+        @Override
+        public Mono<DishDto> getById(Long id) {
+            return Mono.just(dish(id));
+        }
+
+        @Override
+        public Mono<DishDto> revalidateById(Long id, String eTag) {
+            return Mono.just(dish(id));
+        }
+
+        @Override
+        public Mono<List<DishDto>> getByIds(Collection<Long> ids) {
+            return Mono.just(ids.stream().map(MenuConversionBenchmark::dish).toList());
+        }
+    }
+
+    // Answers the single repository method the benchmarked path calls, fails on any other
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type, String methodName, Function<Object[], Object> answer) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getName().equals(methodName)) {
+                return answer.apply(args);
+            }
+            throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+        });
+    }
+}
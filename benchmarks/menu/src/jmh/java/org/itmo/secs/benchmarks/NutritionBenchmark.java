@@ -0,0 +1,67 @@
+package org.itmo.secs.benchmarks;
+
+import org.itmo.secs.model.dto.DishDto;
+import org.itmo.secs.utils.converters.NutritionAccumulator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+// Menu totals summed the old way, through a bean of boxed Integers, against the
+// primitive accumulator. The gc profiler reports the allocation per call as gc.alloc.rate.norm
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class NutritionBenchmark {
+    @Param({"5", "50"})
+    private int dishCount;
+
+    private List<DishDto> dishes;
+
+    @Setup
+    public void setUp() {
+        // Totals above the Integer cache, as real menus have them
+        dishes = LongStream.rangeClosed(1, dishCount)
+                .mapToObj(id -> new DishDto(id, "Борщ " + id, 54, 21, 18, 482))
+                .toList();
+    }
+
+    @Benchmark
+    public int boxedBean() {
+        BoxedTotals totals = new BoxedTotals();
+        for (DishDto dish : dishes) {
+            totals.setCalories(totals.getCalories() + dish.calories());
+            totals.setCarbs(totals.getCarbs() + dish.carbs());
+            totals.setProtein(totals.getProtein() + dish.protein());
+            totals.setFats(totals.getFats() + dish.fats());
+        }
+        return totals.getCalories() + totals.getCarbs() + totals.getProtein() + totals.getFats();
+    }
+
+    @Benchmark
+    public int accumulator() {
+        NutritionAccumulator total = new NutritionAccumulator();
+        for (DishDto dish : dishes) {
+            total.add(dish);
+        }
+        return total.calories() + total.carbs() + total.protein() + total.fats();
+    }
+
+    // The bean menu-service used before NutritionAccumulator
+    private static class BoxedTotals {
+        private Integer calories = 0;
+        private Integer carbs = 0;
+        private Integer protein = 0;
+        private Integer fats = 0;
+
+        Integer getCalories() { return calories; }
+        void setCalories(Integer calories) { this.calories = calories; }
+        Integer getCarbs() { return carbs; }
+        void setCarbs(Integer carbs) { this.carbs = carbs; }
+        Integer getProtein() { return protein; }
+        void setProtein(Integer protein) { this.protein = protein; }
+        Integer getFats() { return fats; }
+        void setFats(Integer fats) { this.fats = fats; }
+    }
+}
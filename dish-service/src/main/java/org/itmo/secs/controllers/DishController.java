@@ -7,10 +7,14 @@ import org.itmo.secs.model.dto.*;
 import org.itmo.secs.model.entities.Dish;
 import org.itmo.secs.services.*;
 import org.itmo.secs.utils.conf.PagingConf;
-import org.itmo.secs.utils.converters.CCPF;
+import org.itmo.secs.utils.exceptions.DataIntegrityViolationException;
+import org.itmo.secs.utils.http.ETags;
+import org.itmo.secs.utils.paging.Cursor;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.web.bind.annotation.*;
 
 import io.swagger.v3.oas.annotations.*;
@@ -24,6 +28,9 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.Flux;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 @AllArgsConstructor
@@ -33,8 +40,8 @@ import java.util.Objects;
 public class DishController {
     private final DishService dishService;
     private final ConversionService conversionService;
-    private final JsonConvService jsonConvService;
     private final PagingConf pagingConf;
+    private final DishChangeService dishChangeService;
 
     @Operation(summary = "Создать новое блюдо", description = "Создается новое блюдо по отправленному DTO")
     @ApiResponses(value = {
@@ -53,7 +60,7 @@ public class DishController {
     @ResponseStatus(HttpStatus.CREATED)
     public Mono<DishDto> create(@Valid @RequestBody DishCreateDto dishCreateDto) {
         return dishService.save(Objects.requireNonNull(conversionService.convert(dishCreateDto, Dish.class)))
-            .flatMap(this::reactiveConvertDishToDishDto);
+            .map(this::convertDishToDishDto);
     }
 
     @Operation(summary = "Изменить блюдо", description = "Изменяет блюдо из БД по отправленному DTO")
@@ -76,16 +83,18 @@ public class DishController {
         return dishService.updateName(Objects.requireNonNull(conversionService.convert(dishUpdateNameDto, Dish.class)));
     }
 
-    @Operation(summary = "Найти блюда", description = "При указании id ищет блюдо по id, при неуказании id и указании имени ищет блюда по имени, иначе возвращает список блюд по указанной странице")
+    @Operation(summary = "Найти блюда", description = "При указании id ищет блюдо по id, при неуказании id и указании имени ищет блюда по имени, иначе возвращает список блюд по указанной странице или по курсору. С заголовком Accept: application/x-ndjson вместо страницы потоком отдаются все блюда (после курсора, если он указан)")
     @ApiResponses(value = {
             @ApiResponse(
                 responseCode = "200", 
                 description = "Если были указаны id или имя, тело содержит соответствующее блюдо, иначе список блюд по указанной странице",
                 content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = DishDto.class)),
-                    @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = DishDto.class)))
+                    @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = DishDto.class))),
+                    @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = DishDto.class))
                 }
             ),
+            @ApiResponse(responseCode = "304", description = "Ответ не изменился с ETag из заголовка If-None-Match, тело не передается"),
             @ApiResponse(responseCode = "404", description = "Блюдо с указанным именем или ID не было найдено",
                 content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDto.class))
@@ -93,7 +102,7 @@ public class DishController {
             )
         })
     @GetMapping
-    public Mono<ResponseEntity<String>> find(
+    public Mono<ResponseEntity<?>> find(
         @Parameter(description = "ID продукта", example = "1")
         @RequestParam(required=false) Long id,
         @Parameter(description = "Номер страницы (нумерация с 0)", example = "0")
@@ -101,12 +110,20 @@ public class DishController {
         @Parameter(description = "Размер страницы (по умолчанию 50)", example = "10")
         @RequestParam(name="psize", required=false) Integer _pageSize,
         @Parameter(description = "Имя продукта", example = "Творог")
-        @RequestParam(required=false) String name
+        @RequestParam(required=false) String name,
+        @Parameter(description = "Курсор следующей страницы из заголовка X-Next-Cursor, при указании pnumber игнорируется", example = "MTA")
+        @RequestParam(required=false) String cursor,
+        ServerHttpRequest request
     ) {
         if (id != null) {
-            return findById(id);
+            return Mono.from(findById(id));
         } else if (name != null) {
-            return findByName(name);
+            return Mono.from(findByName(name));
+        } else if (acceptsNdjson(request)) {
+            return Mono.just(ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(streamAll(cursor == null ? 0 : Cursor.decode(cursor)))
+            );
         } else {
             Integer pageNumber = (_pageNumber == null) ? 0 : _pageNumber;
             Integer pageSize = (_pageSize == null) 
@@ -115,37 +132,89 @@ public class DishController {
                     ? pagingConf.getMaxPageSize()
                     : _pageSize;
 
-            return findAll(pageNumber, pageSize);
+            if (cursor != null && _pageNumber == null) {
+                return Mono.from(findAllAfter(Cursor.decode(cursor), pageSize));
+            }
+            return Mono.from(findAll(pageNumber, pageSize));
         }
     }
 
-    public Mono<ResponseEntity<String>> findById(Long id) {
+    public Mono<ResponseEntity<DishDto>> findById(Long id) {
         return dishService.findById(id)
-                .flatMap(this::reactiveConvertDishToDishDto)
-                .map(dto -> ResponseEntity.ok()
-                        .header("Content-Type", "application/json")
-                        .body(jsonConvService.conv(dto))
-                )
-                .switchIfEmpty(Mono.just(new ResponseEntity<>((String) null, HttpStatus.NOT_FOUND)));
+                .map(this::convertDishToDishDto)
+                .map(dto -> ResponseEntity.ok().eTag(eTagOf(dto)).body(dto))
+                .switchIfEmpty(Mono.just(ResponseEntity.notFound().build()));
     }
 
-    public Mono<ResponseEntity<String>> findByName(String name) {
+    public Mono<ResponseEntity<DishDto>> findByName(String name) {
         return dishService.findByName(name)
-                .flatMap(this::reactiveConvertDishToDishDto)
-                .map(dto -> ResponseEntity.ok()
-                        .header("Content-Type", "application/json")
-                        .body(jsonConvService.conv(dto))
-                )
-                .switchIfEmpty(Mono.just(new ResponseEntity<>((String) null, HttpStatus.NOT_FOUND)));
+                .map(this::convertDishToDishDto)
+                .map(dto -> ResponseEntity.ok().eTag(eTagOf(dto)).body(dto))
+                .switchIfEmpty(Mono.just(ResponseEntity.notFound().build()));
+    }
+
+    public Flux<DishDto> streamAll(long lastId) {
+        return dishService.streamAll(lastId, pagingConf.getMaxPageSize())
+                .map(this::convertDishToDishDto);
+    }
+
+    private static boolean acceptsNdjson(ServerHttpRequest request) {
+        return request.getHeaders().getAccept().stream()
+                .anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype);
+    }
+
+    public Mono<ResponseEntity<List<DishDto>>> findAll(Integer pageNumber, Integer pageSize) {
+        return toPageResponse(dishService.findAll(pageNumber, pageSize), pageSize);
     }
 
-    public Mono<ResponseEntity<String>> findAll(Integer pageNumber, Integer pageSize) {
-        return dishService.findAll(pageNumber, pageSize)
-                .flatMap(this::reactiveConvertDishToDishDto)
+    public Mono<ResponseEntity<List<DishDto>>> findAllAfter(long lastId, Integer pageSize) {
+        return toPageResponse(dishService.findAllAfter(lastId, pageSize), pageSize);
+    }
+
+    // The DTO list is written by the shared Jackson codec straight into the response buffers
+    private Mono<ResponseEntity<List<DishDto>>> toPageResponse(Flux<Dish> dishes, Integer pageSize) {
+        return dishes
+                .map(this::convertDishToDishDto)
                 .collectList()
-                .map(
-                        (dishesDto) -> ResponseEntity.ok().header("Content-Type", "application/json").body(jsonConvService.conv(dishesDto))
-                );
+                .map((dishesDto) -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .eTag(ETags.weakList(dishesDto, DishController::partsOf));
+                    if (dishesDto.size() == pageSize) {
+                        response.header(Cursor.NEXT_CURSOR_HEADER, Cursor.encode(dishesDto.getLast().id()));
+                    }
+                    return response.body(dishesDto);
+                });
+    }
+
+    @Operation(summary = "Найти блюда по списку id", description = "Возвращает блюда с указанными id одним ответом, ненайденные id пропускаются")
+    @ApiResponses(value = {
+            @ApiResponse(
+                responseCode = "200", 
+                description = "Тело содержит список найденных блюд",
+                content = {
+                    @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = DishDto.class)))
+                }
+            ),
+            @ApiResponse(responseCode = "400", description = "Передано больше id, чем допускает app.max-batch-size",
+                content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDto.class))
+                }
+            )
+        })
+    @GetMapping("/batch")
+    public Mono<List<DishDto>> findAllByIds(
+        @Parameter(description = "Список ID блюд", example = "1,2,3", required = true)
+        @RequestParam List<Long> ids
+    ) {
+        if (ids.size() > pagingConf.getMaxBatchSize()) {
+            return Mono.error(new DataIntegrityViolationException(
+                    "Batch size " + ids.size() + " exceeds limit " + pagingConf.getMaxBatchSize()
+            ));
+        }
+        return dishService.findAllByIds(ids)
+                .map(this::convertDishToDishDto)
+                .collectList();
     }
 
     @Operation(summary = "Добавляет продукт в блюдо, если оно еще не было в нем", description = "При наличии блюда с указанным ip в базе, добавляет в него продукт")
@@ -166,6 +235,42 @@ public class DishController {
         return dishService.addItem(dishAddItemDto.itemId(), dishAddItemDto.dishId(), dishAddItemDto.count());
     }
 
+    @Operation(summary = "Изменить состав блюда целиком", description = "Записывает граммовки всех продуктов из списка одним запросом в одной транзакции. При replace=true остальные продукты удаляются из блюда, иначе сохраняются")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Состав блюда успешно изменен"),
+            @ApiResponse(responseCode = "400", description = "Граммовка не указана или отрицательна, либо продукт повторяется в списке",
+                content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDto.class))
+                }
+            ),
+            @ApiResponse(responseCode = "404", description = "Блюдо или продукты с указанными ID не были найдены",
+                content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDto.class))
+                }
+            )
+        })
+    @PutMapping("/items/bulk")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> setItems(
+        @Valid @RequestBody DishItemsDto dishItemsDto,
+        @Parameter(description = "Заменить состав блюда списком (по умолчанию продукты добавляются к составу)", example = "true")
+        @RequestParam(defaultValue = "false") boolean replace
+    ) {
+        if (dishItemsDto.dishId() == null || dishItemsDto.items() == null) {
+            return Mono.error(new DataIntegrityViolationException("Dish id and items must be specified"));
+        }
+        Map<Long, Integer> counts = new LinkedHashMap<>();
+        for (DishItemDto it : dishItemsDto.items()) {
+            if (it.itemId() == null || it.count() == null || it.count() < 0) {
+                return Mono.error(new DataIntegrityViolationException("Each item must have an id and a non-negative count"));
+            }
+            if (counts.put(it.itemId(), it.count()) != null) {
+                return Mono.error(new DataIntegrityViolationException("Item with id " + it.itemId() + " is listed more than once"));
+            }
+        }
+        return dishService.setItems(dishItemsDto.dishId(), counts, replace);
+    }
+
     @Operation(summary = "Удалить блюдо", description = "Удалить блюдо по id")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Успшено удалено"),
@@ -228,39 +333,39 @@ public class DishController {
         @RequestParam() long id
     ) {
         return dishService.makeListOfItems(id)
-                .map(it ->
-                        new ItemCountDto(conversionService.convert(it.getFirst(), ItemDto.class), it.getSecond())
-                );
+                .map(it -> Objects.requireNonNull(conversionService.convert(it, ItemCountDto.class)));
     }
 
-    public Mono<DishDto> reactiveConvertDishToDishDto(Dish dish) {
-        CCPF ccpf = new CCPF(0, 0, 0, 0);
+    @Operation(summary = "Лента изменений блюд", description = "Бесконечный поток записей об изменении блюд (состава, имени, продуктов в составе) и их удалении, начиная после указанного номера записи")
+    @ApiResponses(value = {
+            @ApiResponse(
+                responseCode = "200", 
+                description = "Поток записей об изменениях в порядке их номеров",
+                content = {
+                    @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = DishChangeDto.class)),
+                    @Content(mediaType = "text/event-stream", schema = @Schema(implementation = DishChangeDto.class))
+                }
+            )
+        })
+    @GetMapping(value = "/changes", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<DishChangeDto> changes(
+        @Parameter(description = "Номер записи, после которой начинается поток (по умолчанию только новые записи)", example = "0")
+        @RequestParam(required=false) Long after
+    ) {
+        return dishChangeService.follow(after)
+                .map(it -> Objects.requireNonNull(conversionService.convert(it, DishChangeDto.class)));
+    }
 
-        return dishService.makeListOfItems(dish.getId())
-                .reduce(ccpf, (acc, curr) -> {
-                            acc.setCalories(
-                                    (int) (acc.getCalories() + (double) curr.getFirst().getCalories() / 100.0 * curr.getSecond())
-                            );
-                            acc.setCarbs(
-                                    (int) (acc.getCarbs() + (double) curr.getFirst().getCarbs() / 100.0 * curr.getSecond())
-                            );
-                            acc.setProtein(
-                                    (int) (acc.getProtein() + (double) curr.getFirst().getProtein() / 100.0 * curr.getSecond())
-                            );
-                            acc.setFats(
-                                    (int) (acc.getFats() + (double) curr.getFirst().getFats() / 100.0 * curr.getSecond())
-                            );
+    public DishDto convertDishToDishDto(Dish dish) {
+        return Objects.requireNonNull(conversionService.convert(dish, DishDto.class));
+    }
+
+    // menu-service tags its cached dishes with the same parts in the same order
+    private static String eTagOf(DishDto dto) {
+        return ETags.weak(partsOf(dto));
+    }
 
-                            return acc;
-                        }
-                )
-                .map(ccpf_ -> new DishDto(
-                        dish.getId(),
-                        dish.getName(),
-                        ccpf_.getCalories(),
-                        ccpf_.getCarbs(),
-                        ccpf_.getProtein(),
-                        ccpf_.getFats()
-                ));
+    private static Object[] partsOf(DishDto dto) {
+        return new Object[] {dto.id(), dto.name(), dto.calories(), dto.carbs(), dto.protein(), dto.fats()};
     }
 }
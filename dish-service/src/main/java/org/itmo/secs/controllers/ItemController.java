@@ -5,11 +5,14 @@ import lombok.AllArgsConstructor;
 
 import org.itmo.secs.model.dto.*;
 import org.itmo.secs.model.entities.Item;
+import org.itmo.secs.services.ItemCountService;
+import org.itmo.secs.services.ItemImportService;
 import org.itmo.secs.services.ItemService;
-import org.itmo.secs.services.JsonConvService;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.web.bind.annotation.*;
 
 import io.swagger.v3.oas.annotations.*;
@@ -19,9 +22,13 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.media.*;
 
 import org.itmo.secs.utils.conf.PagingConf;
+import org.itmo.secs.utils.http.ETags;
+import org.itmo.secs.utils.paging.Cursor;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
 import java.util.Objects;
 
 @AllArgsConstructor
@@ -29,10 +36,13 @@ import java.util.Objects;
 @RequestMapping(value = "item")
 @Tag(name = "Продукты (Items API)")
 public class ItemController {
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
     private final ConversionService conversionService;
     private final ItemService itemService;
-    private final JsonConvService jsonConvService;
+    private final ItemCountService itemCountService;
     private final PagingConf pagingConf;
+    private final ItemImportService itemImportService;
 
     @Operation(summary = "Создать новый продукт", description = "Создается новый пользователь по отправленному ItemCreateDTO")
     @ApiResponses(value = {
@@ -56,6 +66,30 @@ public class ItemController {
                 );
     }
 
+    @Operation(summary = "Импортировать продукты", description = "Потоково загружает продукты из NDJSON (по одному ItemCreateDTO в строке) или CSV (name,calories,carbs,protein,fats, строка заголовка необязательна). Строки проверяются по тем же правилам, что и при создании продукта, и записываются пачками. Некорректные строки и продукты с уже существующими именами пропускаются: в ответе указывается их число и первые из них с причинами")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Импорт завершен, тело содержит число импортированных продуктов и ошибки пропущенных строк",
+                content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ItemImportResultDto.class))
+                }
+            )
+        })
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, TEXT_CSV_VALUE})
+    public Mono<ItemImportResultDto> importItems(@RequestBody Flux<String> lines, ServerHttpRequest request) {
+        MediaType contentType = request.getHeaders().getContentType();
+        ItemImportService.Format format = contentType != null && contentType.isCompatibleWith(MediaType.valueOf(TEXT_CSV_VALUE))
+                ? ItemImportService.Format.CSV
+                : ItemImportService.Format.NDJSON;
+        return itemImportService.importItems(lines, format)
+                .map(result -> new ItemImportResultDto(
+                        result.imported(),
+                        result.failed(),
+                        result.errors().stream()
+                                .map(error -> new ItemImportErrorDto(error.row(), error.message()))
+                                .toList()
+                ));
+    }
+
     @Operation(summary = "Изменить продукт", description = "Изменяет продукт из БД по отправленному DTO")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Успешно изменен"), 
@@ -94,16 +128,18 @@ public class ItemController {
         return itemService.delete(itemId);
     }
 
-    @Operation(summary = "Найти продукты", description = "При указании id ищет продукт по id, при неуказании id и указании имени ищет продукт по имени, иначе возвращает список продуктов по указанной странице")
+    @Operation(summary = "Найти продукты", description = "При указании id ищет продукт по id, при неуказании id и указании имени ищет продукт по имени, иначе возвращает список продуктов по указанной странице или по курсору. С заголовком Accept: application/x-ndjson вместо страницы потоком отдаются все продукты (после курсора, если он указан)")
     @ApiResponses(value = {
             @ApiResponse(
                 responseCode = "200", 
                 description = "Если были указаны id или имя, тело содержит соответствующий продукт, иначе список продуктов по указанной странице",
                 content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = ItemDto.class)),
-                    @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = ItemDto.class)))
+                    @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = ItemDto.class))),
+                    @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = ItemDto.class))
                 }
             ),
+            @ApiResponse(responseCode = "304", description = "Ответ не изменился с ETag из заголовка If-None-Match, тело не передается"),
             @ApiResponse(responseCode = "404", description = "Продукт с указанным именем или ID не был найден",
                 content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDto.class))
@@ -111,7 +147,7 @@ public class ItemController {
             )
         })
     @GetMapping
-    public Mono<ResponseEntity<String>> find(
+    public Mono<ResponseEntity<?>> find(
         @Parameter(description = "ID продукта", example = "1")
         @RequestParam(required=false) Long id,
         @Parameter(description = "Номер страницы (нумерация с 0)", example = "0")
@@ -119,12 +155,20 @@ public class ItemController {
         @Parameter(description = "Размер страницы (по умолчанию 50)", example = "10")
         @RequestParam(name="psize", required=false) Integer _pageSize,
         @Parameter(description = "Имя продукта", example = "Творог")
-        @RequestParam(required=false) String name
+        @RequestParam(required=false) String name,
+        @Parameter(description = "Курсор следующей страницы из заголовка X-Next-Cursor, при указании pnumber игнорируется", example = "MTA")
+        @RequestParam(required=false) String cursor,
+        ServerHttpRequest request
     ) {
         if (id != null) {
-            return findById(id);
+            return Mono.from(findById(id));
         } else if (name != null) {
-            return findByName(name);
+            return Mono.from(findByName(name));
+        } else if (acceptsNdjson(request)) {
+            return Mono.just(ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(streamAll(cursor == null ? 0 : Cursor.decode(cursor)))
+            );
         } else {
             Integer pageNumber = (_pageNumber == null) ? 0 : _pageNumber;
             Integer pageSize = (_pageSize == null) 
@@ -133,35 +177,69 @@ public class ItemController {
                     ? pagingConf.getMaxPageSize()
                     : _pageSize;
 
-            return findAll(pageNumber, pageSize);
+            if (cursor != null && _pageNumber == null) {
+                return Mono.from(findAllAfter(Cursor.decode(cursor), pageSize));
+            }
+            return Mono.from(findAll(pageNumber, pageSize));
         }
     }
 
-    public Mono<ResponseEntity<String>> findAll(Integer pageNumber, Integer pageSize) {
+    public Flux<ItemDto> streamAll(long lastId) {
+        return itemService.streamAll(lastId, pagingConf.getMaxPageSize())
+                .map((it) -> Objects.requireNonNull(conversionService.convert(it, ItemDto.class)));
+    }
+
+    private static boolean acceptsNdjson(ServerHttpRequest request) {
+        return request.getHeaders().getAccept().stream()
+                .anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype);
+    }
+
+    public Mono<ResponseEntity<List<ItemDto>>> findAll(Integer pageNumber, Integer pageSize) {
         return Mono.zip(
             itemService.findAll(pageNumber, pageSize)
             .map((it) -> Objects.requireNonNull(conversionService.convert(it, ItemDto.class)))
             .collectList(),
-            itemService.count(), (itemsDto, count) ->
-                ResponseEntity.ok()
-                .header("X-Total-Count", String.valueOf(count))
-                .body(jsonConvService.conv(itemsDto))
+            itemCountService.count(), (itemsDto, count) ->
+                withNextCursor(ResponseEntity.ok(), itemsDto, pageSize)
+                .eTag(ETags.weakList(itemsDto, ItemController::partsOf, count.value()))
+                .header("X-Total-Count", String.valueOf(count.value()))
+                .header(ItemCountService.TOTAL_COUNT_MODE_HEADER, count.mode().headerValue())
+                .body(itemsDto)
             );
     }
 
-    public Mono<ResponseEntity<String>> findById(Long id) {
+    public Mono<ResponseEntity<List<ItemDto>>> findAllAfter(long lastId, Integer pageSize) {
+        return itemService.findAllAfter(lastId, pageSize)
+                .map((it) -> Objects.requireNonNull(conversionService.convert(it, ItemDto.class)))
+                .collectList()
+                .map((itemsDto) -> withNextCursor(ResponseEntity.ok(), itemsDto, pageSize)
+                        .eTag(ETags.weakList(itemsDto, ItemController::partsOf))
+                        .body(itemsDto)
+                );
+    }
+
+    private ResponseEntity.BodyBuilder withNextCursor(ResponseEntity.BodyBuilder response, List<ItemDto> itemsDto, Integer pageSize) {
+        if (itemsDto.size() == pageSize) {
+            response.header(Cursor.NEXT_CURSOR_HEADER, Cursor.encode(itemsDto.getLast().id()));
+        }
+        return response;
+    }
+
+    public Mono<ResponseEntity<ItemDto>> findById(Long id) {
         return itemService.findById(id)
-                .map((item) -> ResponseEntity.ok(jsonConvService.conv(
-                        conversionService.convert(item, ItemDto.class)
-                    )))
+                .map((item) -> Objects.requireNonNull(conversionService.convert(item, ItemDto.class)))
+                .map((itemDto) -> ResponseEntity.ok().eTag(ETags.weak(partsOf(itemDto))).body(itemDto))
                 .switchIfEmpty(Mono.just(ResponseEntity.notFound().build()));
     }
 
-    public Mono<ResponseEntity<String>> findByName(String name) {
+    public Mono<ResponseEntity<ItemDto>> findByName(String name) {
         return itemService.findByName(name)
-                .map((item) -> ResponseEntity.ok(jsonConvService.conv(
-                        conversionService.convert(item, ItemDto.class)
-                    )))
+                .map((item) -> Objects.requireNonNull(conversionService.convert(item, ItemDto.class)))
+                .map((itemDto) -> ResponseEntity.ok().eTag(ETags.weak(partsOf(itemDto))).body(itemDto))
                 .switchIfEmpty(Mono.just(ResponseEntity.notFound().build()));
     }
-}
\ No newline at end of file
+
+    private static Object[] partsOf(ItemDto dto) {
+        return new Object[] {dto.id(), dto.name(), dto.calories(), dto.carbs(), dto.protein(), dto.fats()};
+    }
+}
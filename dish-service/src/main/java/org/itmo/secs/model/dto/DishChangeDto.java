@@ -0,0 +1,13 @@
+package org.itmo.secs.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(name = "Изменение блюда", description = "Запись ленты изменений блюд")
+public record DishChangeDto(
+    @Schema(description = "Порядковый номер записи", type = "number", example = "42")
+    Long seq,
+    @Schema(description = "ID блюда", type = "number", example = "1")
+    Long dishId,
+    @Schema(description = "Тип изменения (UPDATED или DELETED)", type = "string", example = "UPDATED")
+    String type
+) { }
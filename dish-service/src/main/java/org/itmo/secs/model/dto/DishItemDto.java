@@ -0,0 +1,11 @@
+package org.itmo.secs.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(name = "Продукт с граммовкой", description = "Содержит id продукта и его массу в блюде (в граммах)")
+public record DishItemDto(
+    @Schema(description = "ID продукта", type = "number", example = "1")
+    Long itemId,
+    @Schema(description = "Граммовка продукта в блюде", type = "number", example = "100")
+    Integer count
+) { }
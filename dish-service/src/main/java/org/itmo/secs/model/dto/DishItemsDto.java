@@ -0,0 +1,14 @@
+package org.itmo.secs.model.dto;
+
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(name = "Объект для изменения состава блюда", description = "Содержит id блюда и список продуктов с граммовками")
+public record DishItemsDto(
+    @Schema(description = "ID блюда", type = "number", example = "2")
+    Long dishId,
+    @ArraySchema(schema = @Schema(implementation = DishItemDto.class))
+    List<DishItemDto> items
+) { }
@@ -0,0 +1,11 @@
+package org.itmo.secs.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(name = "Ошибка строки импорта", description = "Номер строки загруженного файла и причина, по которой она не была импортирована")
+public record ItemImportErrorDto(
+    @Schema(description = "Номер строки (нумерация с 1)", type = "number", example = "3")
+    long row,
+    @Schema(description = "Описание ошибки", type = "string", example = "Item with name Хлеб already exist")
+    String message
+) { }
@@ -0,0 +1,16 @@
+package org.itmo.secs.model.dto;
+
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(name = "Результат импорта продуктов", description = "Содержит число импортированных и пропущенных продуктов и ошибки пропущенных строк")
+public record ItemImportResultDto(
+    @Schema(description = "Число импортированных продуктов", type = "number", example = "998")
+    long imported,
+    @Schema(description = "Число пропущенных строк", type = "number", example = "2")
+    long failed,
+    @ArraySchema(arraySchema = @Schema(description = "Ошибки пропущенных строк в порядке номеров, не больше app.item-import.max-errors"), schema = @Schema(implementation = ItemImportErrorDto.class))
+    List<ItemImportErrorDto> errors
+) { }
@@ -1,14 +1,12 @@
 package org.itmo.secs.model.entities;
 
-import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 
 import lombok.*;
 
-import java.util.ArrayList;
-import java.util.List;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
 
-@Entity
 @Table(name = "dishes")
 @Getter
 @Setter
@@ -16,14 +14,20 @@ import java.util.List;
 @NoArgsConstructor
 public class Dish {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     @NotNull
-    @Column(unique = true)
     private String name;
 
-    @OneToMany(mappedBy = "dish", cascade = CascadeType.REMOVE, orphanRemoval = true)
     @NotNull
-    private List<ItemDish> items_dishes = new ArrayList<>();
+    private Integer calories = 0;
+
+    @NotNull
+    private Integer carbs = 0;
+
+    @NotNull
+    private Integer protein = 0;
+
+    @NotNull
+    private Integer fats = 0;
 }
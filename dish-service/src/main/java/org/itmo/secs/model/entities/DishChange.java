@@ -0,0 +1,32 @@
+package org.itmo.secs.model.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.itmo.secs.model.entities.enums.DishChangeType;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.Instant;
+
+// Outbox record written in the same transaction as the dish change it describes
+@Table(name = "dish_changes")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class DishChange {
+    @Id
+    private Long seq;
+
+    @Column("dish_id")
+    private Long dishId;
+
+    @Column("change_type")
+    private DishChangeType changeType;
+
+    @Column("changed_at")
+    private Instant changedAt;
+}
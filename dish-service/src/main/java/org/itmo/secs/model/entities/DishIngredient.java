@@ -0,0 +1,22 @@
+package org.itmo.secs.model.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Read-only projection of an items row joined with its count from items_dishes,
+// so a dish's composition loads in one statement
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class DishIngredient {
+    private Long id;
+    private String name;
+    private Integer calories;
+    private Integer carbs;
+    private Integer protein;
+    private Integer fats;
+    private int count;
+}
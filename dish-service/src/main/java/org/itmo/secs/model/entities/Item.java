@@ -1,9 +1,5 @@
 package org.itmo.secs.model.entities;
 
-import java.util.ArrayList;
-import java.util.List;
-
-import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PositiveOrZero;
 import jakarta.validation.constraints.Size;
@@ -11,8 +7,9 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
 
-@Entity
 @Table(name = "items")
 @Getter
 @Setter
@@ -20,11 +17,9 @@ import lombok.Setter;
 @NoArgsConstructor
 public class Item {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     @Size(min = 3, max = 16)
-    @Column(unique = true)
     private String name;
 
     @NotNull
@@ -42,8 +37,4 @@ public class Item {
     @NotNull
     @PositiveOrZero
     private Integer fats;
-
-    @OneToMany(mappedBy = "item", cascade = CascadeType.REMOVE, orphanRemoval = true)
-    @NotNull
-    private List<ItemDish> items_dishes = new ArrayList<>();
 }
@@ -1,37 +1,27 @@
 package org.itmo.secs.model.entities;
 
-import com.fasterxml.jackson.annotation.JsonIgnore;
-
-import jakarta.persistence.*;
-
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PositiveOrZero;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
 
-@Entity
+// items_dishes has a composite primary key (item_id, dish_id), which Spring Data R2DBC
+// can't map, so writes go through explicit queries in ItemDishRepository
 @Table(name = "items_dishes")
 @Getter
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
 public class ItemDish {
-    @EmbeddedId
-    private ItemDishId id = new ItemDishId();
-
-    @ManyToOne
-    @JsonIgnore
-    @MapsId("itemId")
-    @JoinColumn(name = "item_id")
-    private Item item;
+    @Column("item_id")
+    private Long itemId;
 
-    @ManyToOne
-    @JsonIgnore
-    @MapsId("dishId")
-    @JoinColumn(name = "dish_id")
-    private Dish dish;
+    @Column("dish_id")
+    private Long dishId;
 
     @NotNull
     @PositiveOrZero
@@ -1,24 +0,0 @@
-package org.itmo.secs.model.entities;
-
-import java.io.Serializable;
-
-import jakarta.persistence.Column;
-import jakarta.persistence.Embeddable;
-import lombok.AllArgsConstructor;
-import lombok.EqualsAndHashCode;
-import lombok.Getter;
-import lombok.NoArgsConstructor;
-import lombok.Setter;
-
-@Embeddable
-@Getter
-@Setter
-@NoArgsConstructor
-@AllArgsConstructor
-@EqualsAndHashCode
-public class ItemDishId implements Serializable {
-    @Column(name = "item_id")
-    private Long itemId;
-    @Column(name = "dish_id")
-    private Long dishId;
-}
\ No newline at end of file
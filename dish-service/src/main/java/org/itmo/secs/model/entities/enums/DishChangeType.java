@@ -0,0 +1,5 @@
+package org.itmo.secs.model.entities.enums;
+
+public enum DishChangeType {
+    UPDATED, DELETED
+}
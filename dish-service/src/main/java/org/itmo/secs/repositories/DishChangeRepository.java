@@ -0,0 +1,28 @@
+package org.itmo.secs.repositories;
+
+import org.itmo.secs.model.entities.DishChange;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Collection;
+
+@Repository
+public interface DishChangeRepository extends R2dbcRepository<DishChange, Long> {
+    @Query("SELECT * FROM dish_changes WHERE seq > :afterSeq ORDER BY seq LIMIT :limit")
+    Flux<DishChange> findAllAfter(long afterSeq, int limit);
+
+    @Query("SELECT * FROM dish_changes WHERE seq IN (:seqs) ORDER BY seq")
+    Flux<DishChange> findAllBySeqIn(Collection<Long> seqs);
+
+    @Query("SELECT COALESCE(MAX(seq), 0) FROM dish_changes")
+    Mono<Long> findLastSeq();
+
+    @Modifying
+    @Query("DELETE FROM dish_changes WHERE changed_at < :cutoff")
+    Mono<Long> deleteAllChangedBefore(Instant cutoff);
+}
@@ -1,13 +1,42 @@
 package org.itmo.secs.repositories;
 
-import java.util.Optional;
-
 import org.itmo.secs.model.entities.Dish;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.util.Collection;
 
 @Repository
-public interface DishRepository extends JpaRepository<Dish, Long> {
-    Optional<Dish> findByName(String name);
+public interface DishRepository extends R2dbcRepository<Dish, Long> {
+    Mono<Dish> findByName(String name);
+    Flux<Dish> findAllBy(Pageable pageable);
+
+    // Empty when a dish with the same name already exists
+    @Query("INSERT INTO dishes (name) VALUES (:name) ON CONFLICT (name) DO NOTHING RETURNING *")
+    Mono<Dish> insertIfAbsent(String name);
+
+    @Query("SELECT * FROM dishes WHERE id > :lastId ORDER BY id LIMIT :limit")
+    Flux<Dish> findAllAfter(long lastId, int limit);
+
+    @Modifying
+    @Query("UPDATE dishes SET name = :name WHERE id = :id")
+    Mono<Void> updateName(long id, String name);
+
+    // Item nutrition is stored per 100 g; shares are summed exactly as value * grams
+    // and the total is rounded half up once
+    @Modifying
+    @Query("UPDATE dishes d SET (calories, carbs, protein, fats) = (" +
+            "SELECT CAST(ROUND(COALESCE(SUM(i.calories * idh.count), 0) / 100.0) AS INT), " +
+            "CAST(ROUND(COALESCE(SUM(i.carbs * idh.count), 0) / 100.0) AS INT), " +
+            "CAST(ROUND(COALESCE(SUM(i.protein * idh.count), 0) / 100.0) AS INT), " +
+            "CAST(ROUND(COALESCE(SUM(i.fats * idh.count), 0) / 100.0) AS INT) " +
+            "FROM items_dishes idh JOIN items i ON i.id = idh.item_id " +
+            "WHERE idh.dish_id = d.id" +
+            ") WHERE d.id IN (:dishIds)")
+    Mono<Void> recomputeNutrition(Collection<Long> dishIds);
 }
@@ -1,16 +1,41 @@
 package org.itmo.secs.repositories;
 
+import org.itmo.secs.model.entities.DishIngredient;
 import org.itmo.secs.model.entities.ItemDish;
-
-import org.itmo.secs.model.entities.ItemDishId;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.stereotype.Repository;
-
-import java.util.Optional;
-import java.util.List;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @Repository
-public interface ItemDishRepository extends JpaRepository<ItemDish, ItemDishId> {
-    Optional<ItemDish> findById_ItemIdAndId_DishId(long itemId, long dishId);
-    List<ItemDish> findAllById_DishId(long dishId);
+public interface ItemDishRepository extends R2dbcRepository<ItemDish, Long> {
+    Mono<ItemDish> findByItemIdAndDishId(long itemId, long dishId);
+    Flux<ItemDish> findAllByItemId(long itemId);
+
+    @Query("SELECT i.id, i.name, i.calories, i.carbs, i.protein, i.fats, idh.count " +
+            "FROM items_dishes idh JOIN items i ON i.id = idh.item_id " +
+            "WHERE idh.dish_id = :dishId ORDER BY i.id")
+    Flux<DishIngredient> findIngredientsByDishId(long dishId);
+
+    @Modifying
+    @Query("INSERT INTO items_dishes (item_id, dish_id, count) VALUES (:itemId, :dishId, :count) " +
+            "ON CONFLICT (item_id, dish_id) DO UPDATE SET count = EXCLUDED.count")
+    Mono<Void> upsert(long itemId, long dishId, int count);
+
+    // Writes the whole list in one statement; itemIds must not repeat, or ON CONFLICT fails
+    @Modifying
+    @Query("INSERT INTO items_dishes (item_id, dish_id, count) " +
+            "SELECT t.item_id, :dishId, t.count FROM UNNEST(CAST(:itemIds AS BIGINT[]), CAST(:counts AS INT[])) AS t(item_id, count) " +
+            "ON CONFLICT (item_id, dish_id) DO UPDATE SET count = EXCLUDED.count")
+    Mono<Void> upsertAll(long dishId, Long[] itemIds, Integer[] counts);
+
+    @Modifying
+    @Query("DELETE FROM items_dishes WHERE dish_id = :dishId")
+    Mono<Void> deleteAllByDishId(long dishId);
+
+    @Modifying
+    @Query("DELETE FROM items_dishes WHERE item_id = :itemId AND dish_id = :dishId")
+    Mono<Void> deleteByItemIdAndDishId(long itemId, long dishId);
 }
@@ -1,12 +1,40 @@
 package org.itmo.secs.repositories;
 
 import org.itmo.secs.model.entities.Item;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-import java.util.Optional;
+import java.util.Collection;
 
 @Repository
-public interface ItemRepository extends JpaRepository<Item, Long> {
-    Optional<Item> findByName(String name);
-}
\ No newline at end of file
+public interface ItemRepository extends R2dbcRepository<Item, Long> {
+    Mono<Item> findByName(String name);
+    Flux<Item> findAllBy(Pageable pageable);
+
+    // Empty when an item with the same name already exists
+    @Query("INSERT INTO items (name, calories, carbs, protein, fats) " +
+            "VALUES (:name, :calories, :carbs, :protein, :fats) " +
+            "ON CONFLICT (name) DO NOTHING RETURNING *")
+    Mono<Item> insertIfAbsent(String name, Integer calories, Integer carbs, Integer protein, Integer fats);
+
+    // Names that already exist, or repeat earlier in the arrays, are skipped; returns the names inserted
+    @Query("INSERT INTO items (name, calories, carbs, protein, fats) " +
+            "SELECT * FROM UNNEST(CAST(:names AS TEXT[]), CAST(:calories AS INT[]), CAST(:carbs AS INT[]), " +
+            "CAST(:protein AS INT[]), CAST(:fats AS INT[])) " +
+            "ON CONFLICT (name) DO NOTHING RETURNING name")
+    Flux<String> insertAllIfAbsent(String[] names, Integer[] calories, Integer[] carbs, Integer[] protein, Integer[] fats);
+
+    @Query("SELECT id FROM items WHERE id IN (:ids)")
+    Flux<Long> findExistingIds(Collection<Long> ids);
+
+    @Query("SELECT * FROM items WHERE id > :lastId ORDER BY id LIMIT :limit")
+    Flux<Item> findAllAfter(long lastId, int limit);
+
+    // Planner statistics kept by ANALYZE/autovacuum; -1 until the table has been analyzed
+    @Query("SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE oid = to_regclass('items')")
+    Mono<Long> estimateCount();
+}
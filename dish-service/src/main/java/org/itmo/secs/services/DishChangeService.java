@@ -0,0 +1,161 @@
+package org.itmo.secs.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.itmo.secs.model.entities.DishChange;
+import org.itmo.secs.model.entities.enums.DishChangeType;
+import org.itmo.secs.repositories.DishChangeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class DishChangeService {
+    private static final int FEED_BATCH_SIZE = 500;
+    private static final int MAX_TRACKED_GAP = 1000;
+
+    private final DishChangeRepository dishChangeRepository;
+    private final Duration pollInterval;
+    private final Duration gapTimeout;
+    private final Duration retention;
+    private final Duration purgeInterval;
+    private Disposable purgeTask;
+
+    public DishChangeService(
+        DishChangeRepository dishChangeRepository,
+        @Value("${app.dish-changes.poll-interval:1s}") Duration pollInterval,
+        @Value("${app.dish-changes.gap-timeout:30s}") Duration gapTimeout,
+        @Value("${app.dish-changes.retention:7d}") Duration retention,
+        @Value("${app.dish-changes.purge-interval:1h}") Duration purgeInterval
+    ) {
+        this.dishChangeRepository = dishChangeRepository;
+        this.pollInterval = pollInterval;
+        this.gapTimeout = gapTimeout;
+        this.retention = retention;
+        this.purgeInterval = purgeInterval;
+    }
+
+    @PostConstruct
+    public void startPurge() {
+        purgeTask = Flux.interval(purgeInterval)
+                .concatMap(x -> purge().onErrorResume(ex -> Mono.empty()))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stopPurge() {
+        if (purgeTask != null) {
+            purgeTask.dispose();
+        }
+    }
+
+    // Records older than app.dish-changes.retention are deleted; a follower resuming with
+    // an older seq misses them and relies on its cache TTL. Never cuts below the gap timeout,
+    // so a record committed late is not removed while a live feed may still look it up
+    public Mono<Long> purge() {
+        Duration keep = retention.compareTo(gapTimeout) > 0 ? retention : gapTimeout;
+        return dishChangeRepository.deleteAllChangedBefore(Instant.now().minus(keep));
+    }
+
+    // Must run inside the transaction that changes the dishes, so the record
+    // becomes visible exactly when the change is committed
+    public Mono<Void> record(Collection<Long> dishIds, DishChangeType changeType) {
+        Instant now = Instant.now();
+        return dishChangeRepository.saveAll(
+                dishIds.stream().distinct().map(dishId -> new DishChange(null, dishId, changeType, now)).toList()
+        ).then();
+    }
+
+    public Mono<Void> record(Long dishId, DishChangeType changeType) {
+        return dishChangeRepository.save(new DishChange(null, dishId, changeType, Instant.now())).then();
+    }
+
+    public Flux<DishChange> findAllAfter(long afterSeq, int limit) {
+        return dishChangeRepository.findAllAfter(afterSeq, limit);
+    }
+
+    // Endless feed of records after afterSeq (or after the latest one when null):
+    // polls again right away while polls return full batches, so a follower behind a
+    // backlog catches up at query speed, and every app.dish-changes.poll-interval once caught up.
+    // seq is taken at insert but becomes visible at commit, so a lower seq can appear after
+    // a higher one was read. Skipped values are kept as gaps and looked up again on every
+    // poll until app.dish-changes.gap-timeout passes (a rolled back insert never fills its gap)
+    public Flux<DishChange> follow(Long afterSeq) {
+        Mono<Long> start = (afterSeq != null) ? Mono.just(afterSeq) : dishChangeRepository.findLastSeq();
+        return start.flatMapMany(seq -> {
+            FeedPosition position = new FeedPosition(seq);
+            return Flux.defer(() -> poll(position))
+                    .repeatWhen(completions -> completions.concatMap(done -> position.caughtUp()
+                            ? Mono.delay(pollInterval)
+                            : Mono.just(done)
+                    ));
+        });
+    }
+
+    private Flux<DishChange> poll(FeedPosition position) {
+        List<Long> gaps = position.openGaps(Instant.now(), gapTimeout);
+        Flux<DishChange> filled = gaps.isEmpty()
+                ? Flux.empty()
+                : dishChangeRepository.findAllBySeqIn(gaps).doOnNext(change -> position.filled(change.getSeq()));
+        Flux<DishChange> next = Flux.defer(() -> {
+                    position.startBatch();
+                    return findAllAfter(position.lastSeq(), FEED_BATCH_SIZE);
+                })
+                .doOnNext(change -> position.advance(change.getSeq(), Instant.now()));
+        return Flux.concat(filled, next);
+    }
+
+    private static final class FeedPosition {
+        private long lastSeq;
+        private int batchCount;
+        // missing seq -> when it was first seen missing
+        private final Map<Long, Instant> gaps = new HashMap<>();
+
+        FeedPosition(long lastSeq) {
+            this.lastSeq = lastSeq;
+        }
+
+        synchronized long lastSeq() {
+            return lastSeq;
+        }
+
+        // A jump wider than MAX_TRACKED_GAP is a sequence cache skip, not in-flight transactions
+        synchronized void advance(long seq, Instant now) {
+            if (seq - lastSeq - 1 <= MAX_TRACKED_GAP) {
+                for (long missing = lastSeq + 1; missing < seq; missing++) {
+                    gaps.put(missing, now);
+                }
+            }
+            lastSeq = Math.max(lastSeq, seq);
+            batchCount++;
+        }
+
+        synchronized void startBatch() {
+            batchCount = 0;
+        }
+
+        synchronized boolean caughtUp() {
+            return batchCount < FEED_BATCH_SIZE;
+        }
+
+        synchronized List<Long> openGaps(Instant now, Duration timeout) {
+            gaps.values().removeIf(seenAt -> seenAt.plus(timeout).isBefore(now));
+            return List.copyOf(gaps.keySet());
+        }
+
+        synchronized void filled(long seq) {
+            gaps.remove(seq);
+        }
+    }
+}
@@ -1,22 +1,32 @@
 package org.itmo.secs.services;
 
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
 import lombok.AllArgsConstructor;
 
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.util.Pair;
-
+import org.springframework.data.domain.Sort;
 import org.itmo.secs.model.entities.Dish;
-import org.itmo.secs.model.entities.Item;
+import org.itmo.secs.model.entities.DishIngredient;
+import org.itmo.secs.model.entities.enums.DishChangeType;
 import org.itmo.secs.repositories.DishRepository;
 import org.itmo.secs.utils.exceptions.*;
+import org.itmo.secs.utils.paging.Keyset;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.Flux;
 
-import java.util.Objects;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @AllArgsConstructor
@@ -24,89 +34,115 @@ public class DishService {
     private final ItemDishService itemDishService;
     private final DishRepository dishRepository;
     private final ItemService itemService;
+    private final DishChangeService dishChangeService;
+    private final Validator validator;
 
-    @Transactional
     public Mono<Dish> save(Dish dish) {
-        if (dishRepository.findByName(dish.getName()).isPresent()) {
-            return Mono.error(new DataIntegrityViolationException("Dish with name " + dish.getName() + " already exist"));
-        }
-
-        return Mono.just(dishRepository.save(dish));
+        return validated(dish)
+                .flatMap(valid -> dishRepository.insertIfAbsent(valid.getName()))
+                .switchIfEmpty(Mono.error(() -> new DataIntegrityViolationException("Dish with name " + dish.getName() + " already exist")));
     }
 
     @Transactional
     public Mono<Void> addItem(Long itemId, Long dishId, int count) {
-        Dish dish = dishRepository.findById(dishId).orElse(null);
-        if (dish == null) {
-            return Mono.error(new ItemNotFoundException("Dish with id " + dishId + " was not found"));
-        }
-
-        return itemService.findById(itemId)
-                .switchIfEmpty(Mono.error(new ItemNotFoundException("Item with id " + itemId + " was not found")))
-                .flatMap(item -> itemDishService.updateItemDishCount(item, dish, count))
-                .then();
+        return findById(dishId)
+                .switchIfEmpty(Mono.error(new ItemNotFoundException("Dish with id " + dishId + " was not found")))
+                .flatMap(dish -> itemService.findById(itemId)
+                        .switchIfEmpty(Mono.error(new ItemNotFoundException("Item with id " + itemId + " was not found")))
+                        .flatMap(item -> itemDishService.updateItemDishCount(item, dish, count))
+                )
+                .then(dishChangeService.record(dishId, DishChangeType.UPDATED));
     }
 
+    // counts maps item id to grams; all items are checked with one query before anything is written
     @Transactional
-    public Mono<Void> deleteItem(Long itemId, Long dishId) {
-        Dish dish = dishRepository.findById(dishId).orElse(null);
-
-        if (dish == null) {
-            return Mono.error(new ItemNotFoundException("Dish with id " + itemId + " was not found"));
-        }
+    public Mono<Void> setItems(Long dishId, Map<Long, Integer> counts, boolean replace) {
+        return findById(dishId)
+                .switchIfEmpty(Mono.error(new ItemNotFoundException("Dish with id " + dishId + " was not found")))
+                .flatMap(dish -> itemService.findExistingIds(counts.keySet())
+                        .collect(Collectors.toSet())
+                        .flatMap(found -> {
+                            List<Long> missing = counts.keySet().stream()
+                                    .filter(itemId -> !found.contains(itemId))
+                                    .toList();
+                            if (!missing.isEmpty()) {
+                                return Mono.error(new ItemNotFoundException("Items with ids " + missing + " were not found"));
+                            }
+                            return itemDishService.updateItemDishCounts(dish, counts, replace);
+                        })
+                )
+                .then(dishChangeService.record(dishId, DishChangeType.UPDATED));
+    }
 
-        return itemService.findById(itemId)
-                .switchIfEmpty(Mono.error(new ItemNotFoundException("Item with id " + itemId + " was not found")))
-                .flatMap(item -> itemDishService.delete(item, dish));
+    @Transactional
+    public Mono<Void> deleteItem(Long itemId, Long dishId) {
+        return findById(dishId)
+                .switchIfEmpty(Mono.error(new ItemNotFoundException("Dish with id " + dishId + " was not found")))
+                .flatMap(dish -> itemService.findById(itemId)
+                        .switchIfEmpty(Mono.error(new ItemNotFoundException("Item with id " + itemId + " was not found")))
+                        .flatMap(item -> itemDishService.delete(item, dish))
+                )
+                .then(dishChangeService.record(dishId, DishChangeType.UPDATED));
     }
 
     @Transactional
     public Mono<Void> updateName(Dish dish) {
-        return findById(dish.getId())
+        return validated(dish)
+                .flatMap(valid -> findById(valid.getId()))
                 .switchIfEmpty(Mono.error(new ItemNotFoundException("Dish with id " + dish.getId() + " was not found")))
-                .flatMap(orig -> findByName(dish.getName())
-                        .flatMap(x -> {
-                            if (!Objects.equals(x.getId(), dish.getId())) {
-                                return Mono.error(new DataIntegrityViolationException("Dish with name " + dish.getName() + " already exist"));
-                            } else {
-                                return Mono.just(orig);
-                            }
-                        })
-                        .switchIfEmpty(Mono.just(orig))
+                // dishes_name_key decides a name clash, also against a concurrent rename
+                .flatMap(x -> dishRepository.updateName(dish.getId(), dish.getName())
+                        .onErrorMap(DuplicateKeyException.class, e ->
+                                new DataIntegrityViolationException("Dish with name " + dish.getName() + " already exist"))
                 )
-                .map(x -> dishRepository.save(dish)).then();
+                .then(dishChangeService.record(dish.getId(), DishChangeType.UPDATED));
     }
 
     public Mono<Dish> findById(Long id) {
-        Dish dish = dishRepository.findById(id).orElse(null);
-        return (dish != null) ? Mono.just(dish) : Mono.empty();
+        return dishRepository.findById(id);
+    }
+
+    public Flux<Dish> findAllByIds(Collection<Long> ids) {
+        return dishRepository.findAllById(new HashSet<>(ids));
     }
 
     public Mono<Dish> findByName(String name) {
-        Dish dish = dishRepository.findByName(name).orElse(null);
-        return (dish != null) ? Mono.just(dish) : Mono.empty();
+        return dishRepository.findByName(name);
     }
 
     @Transactional
     public Mono<Void> delete(Long id) {
-        if (dishRepository.findById(id).isEmpty()) {
-            return Mono.error(new ItemNotFoundException("Dish with id " + id + " was not found"));
-        }
-
-        dishRepository.deleteById(id);
-        return Mono.empty();
+        return dishRepository.findById(id)
+                .switchIfEmpty(Mono.error(new ItemNotFoundException("Dish with id " + id + " was not found")))
+                .flatMap(x -> dishRepository.deleteById(id))
+                .then(dishChangeService.record(id, DishChangeType.DELETED));
     }
 
     @Transactional
-    public Flux<Pair<Item, Integer>> makeListOfItems(Long dishId) {
+    public Flux<DishIngredient> makeListOfItems(Long dishId) {
         return findById(dishId)
                 .switchIfEmpty(Mono.error(new ItemNotFoundException("Dish with id " + dishId + " was not found")))
-                .flatMapMany(it -> itemDishService.findAllByDishId(dishId))
-                .map(itemDish -> Pair.of(itemDish.getItem(), itemDish.getCount()));
+                .flatMapMany(it -> itemDishService.findIngredientsByDishId(dishId));
     }
 
     public Flux<Dish> findAll(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        return Flux.fromIterable(dishRepository.findAll(pageable).toList());
+        Pageable pageable = PageRequest.of(page, size, Sort.by("id"));
+        return dishRepository.findAllBy(pageable);
+    }
+
+    public Flux<Dish> findAllAfter(long lastId, int size) {
+        return dishRepository.findAllAfter(lastId, size);
+    }
+
+    public Flux<Dish> streamAll(long lastId, int chunkSize) {
+        return Keyset.walk(lastId, chunkSize, this::findAllAfter, Dish::getId);
+    }
+
+    // R2DBC does not run bean validation on write, so entity constraints are checked here
+    private <T> Mono<T> validated(T entity) {
+        return Mono.defer(() -> {
+            Set<ConstraintViolation<T>> violations = validator.validate(entity);
+            return violations.isEmpty() ? Mono.just(entity) : Mono.error(new ConstraintViolationException(violations));
+        });
     }
 }
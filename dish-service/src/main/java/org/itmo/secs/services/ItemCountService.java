@@ -0,0 +1,106 @@
+package org.itmo.secs.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.itmo.secs.repositories.ItemRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class ItemCountService {
+    public static final String TOTAL_COUNT_MODE_HEADER = "X-Total-Count-Mode";
+
+    public enum Mode {
+        EXACT, CACHED, ESTIMATED;
+
+        public String headerValue() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    public record TotalCount(long value, Mode mode) { }
+
+    private static final long UNKNOWN = -1;
+
+    private final ItemRepository itemRepository;
+    private final Mode mode;
+    private final Duration refreshInterval;
+    private final AtomicLong cachedCount = new AtomicLong(UNKNOWN);
+    private Disposable refreshTask;
+
+    public ItemCountService(
+        ItemRepository itemRepository,
+        @Value("${app.item-count.mode:exact}") Mode mode,
+        @Value("${app.item-count.refresh-interval:30s}") Duration refreshInterval
+    ) {
+        this.itemRepository = itemRepository;
+        this.mode = mode;
+        this.refreshInterval = refreshInterval;
+    }
+
+    @PostConstruct
+    public void startRefresh() {
+        if (mode != Mode.CACHED) {
+            return;
+        }
+        refreshTask = Flux.interval(Duration.ZERO, refreshInterval)
+                .concatMap(x -> itemRepository.count()
+                        .doOnNext(cachedCount::set)
+                        .onErrorResume(ex -> Mono.empty())
+                )
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stopRefresh() {
+        if (refreshTask != null) {
+            refreshTask.dispose();
+        }
+    }
+
+    public Mono<TotalCount> count() {
+        return switch (mode) {
+            case EXACT -> exactCount();
+            case CACHED -> cachedCount();
+            case ESTIMATED -> itemRepository.estimateCount()
+                    .filter(count -> count >= 0)
+                    .map(count -> new TotalCount(count, Mode.ESTIMATED))
+                    .switchIfEmpty(Mono.defer(this::exactCount));
+        };
+    }
+
+    // Writes shift the cached value right away; the periodic refresh corrects any
+    // drift left by concurrent writes or rolled back transactions
+    public void onCreated() {
+        onCreated(1);
+    }
+
+    public void onCreated(long created) {
+        cachedCount.updateAndGet(count -> count == UNKNOWN ? UNKNOWN : count + created);
+    }
+
+    public void onDeleted() {
+        cachedCount.updateAndGet(count -> count == UNKNOWN ? UNKNOWN : Math.max(count - 1, 0));
+    }
+
+    private Mono<TotalCount> cachedCount() {
+        long count = cachedCount.get();
+        if (count != UNKNOWN) {
+            return Mono.just(new TotalCount(count, Mode.CACHED));
+        }
+        return exactCount().doOnNext(total -> cachedCount.compareAndSet(UNKNOWN, total.value()));
+    }
+
+    private Mono<TotalCount> exactCount() {
+        return itemRepository.count().map(count -> new TotalCount(count, Mode.EXACT));
+    }
+}
@@ -2,55 +2,77 @@ package org.itmo.secs.services;
 
 import lombok.AllArgsConstructor;
 import org.itmo.secs.model.entities.Dish;
+import org.itmo.secs.model.entities.DishIngredient;
 import org.itmo.secs.model.entities.Item;
 import org.itmo.secs.model.entities.ItemDish;
+import org.itmo.secs.repositories.DishRepository;
 import org.itmo.secs.repositories.ItemDishRepository;
 import org.itmo.secs.utils.exceptions.ItemNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Optional;
-
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.Flux;
 
+import java.util.List;
+import java.util.Map;
+
 @Service
 @AllArgsConstructor
 public class ItemDishService {
+    private static final int RECOMPUTE_BATCH_SIZE = 500;
+
     private final ItemDishRepository itemDishRepository;
+    private final DishRepository dishRepository;
 
     @Transactional
     public Mono<ItemDish> updateItemDishCount(Item item, Dish dish, int count) {
-        Optional<ItemDish> itemDishOpt = itemDishRepository.findById_ItemIdAndId_DishId(item.getId(), dish.getId());
-        ItemDish persistUnit = new ItemDish();
-        if (itemDishOpt.isEmpty()) {
-            persistUnit.setItem(item);
-            persistUnit.setDish(dish);
-            persistUnit.setCount(count);
-        } else {
-            persistUnit = itemDishOpt.get();
-            persistUnit.setCount(count);
-        }
-        return Mono.just(itemDishRepository.save(persistUnit));
+        return itemDishRepository.upsert(item.getId(), dish.getId(), count)
+                .then(dishRepository.recomputeNutrition(List.of(dish.getId())))
+                .thenReturn(new ItemDish(item.getId(), dish.getId(), count));
+    }
+
+    // With replace the dish's other items are removed, otherwise they are kept
+    @Transactional
+    public Mono<Void> updateItemDishCounts(Dish dish, Map<Long, Integer> counts, boolean replace) {
+        Mono<Void> clear = replace ? itemDishRepository.deleteAllByDishId(dish.getId()) : Mono.empty();
+        Mono<Void> write = counts.isEmpty()
+                ? Mono.empty()
+                : itemDishRepository.upsertAll(
+                        dish.getId(),
+                        counts.keySet().toArray(Long[]::new),
+                        counts.values().toArray(Integer[]::new)
+                );
+        return clear.then(write)
+                .then(dishRepository.recomputeNutrition(List.of(dish.getId())));
     }
 
     @Transactional
     public Mono<Void> delete(Item item, Dish dish) {
         return findById(item.getId(), dish.getId())
             .switchIfEmpty(Mono.error(new ItemNotFoundException("Item with id " + item.getId() + " was not found in Dish with id " + dish.getId())))
-            .flatMap(x -> {
-                itemDishRepository.delete(x);
-                return Mono.empty();
-            });
+            .flatMap(x -> itemDishRepository.deleteByItemIdAndDishId(x.getItemId(), x.getDishId())
+                    .then(dishRepository.recomputeNutrition(List.of(x.getDishId())))
+            );
     }
 
     public Mono<ItemDish> findById(long itemId, long dishId) {
-        ItemDish itemDish = itemDishRepository.findById_ItemIdAndId_DishId(itemId, dishId).orElse(null);
-        return (itemDish != null) ? Mono.just(itemDish) : Mono.empty();
+        return itemDishRepository.findByItemIdAndDishId(itemId, dishId);
     }
 
-    public Flux<ItemDish> findAllByDishId(long dishId) {
-        return Flux.fromIterable(itemDishRepository.findAllById_DishId(dishId));
+    public Flux<DishIngredient> findIngredientsByDishId(long dishId) {
+        return itemDishRepository.findIngredientsByDishId(dishId);
+    }
+
+    public Flux<Long> findDishIdsByItemId(long itemId) {
+        return itemDishRepository.findAllByItemId(itemId)
+                .map(ItemDish::getDishId);
+    }
+
+    @Transactional
+    public Mono<Void> recomputeNutrition(Flux<Long> dishIds) {
+        return dishIds.buffer(RECOMPUTE_BATCH_SIZE)
+                .concatMap(dishRepository::recomputeNutrition)
+                .then();
     }
 }
@@ -0,0 +1,256 @@
+package org.itmo.secs.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import org.itmo.secs.model.dto.ItemCreateDto;
+import org.itmo.secs.model.entities.Item;
+import org.itmo.secs.repositories.ItemRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.stereotype.Service;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Bulk load of items: rows are parsed and validated one by one, then written in
+// chunks of app.item-import.batch-size with one multi-row insert each. A bad or
+// duplicate row is reported and skipped, the rest of the upload is still imported
+@Service
+public class ItemImportService {
+    public enum Format { NDJSON, CSV }
+
+    public record RowError(long row, String message) { }
+
+    // failed counts every skipped row, errors lists only the first app.item-import.max-errors of them
+    public record Result(long imported, long failed, List<RowError> errors) { }
+
+    private record Row(long number, Item item, String error) {
+        static Row failed(long number, String error) {
+            return new Row(number, null, error);
+        }
+    }
+
+    // Batch results are added into one mutable tally, so the cost per batch
+    // does not grow with the errors already collected
+    private static final class Tally {
+        private final int maxErrors;
+        private final List<RowError> errors = new ArrayList<>();
+        private long imported;
+        private long failed;
+
+        Tally(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        void add(Result batch) {
+            imported += batch.imported();
+            failed += batch.failed();
+            for (RowError error : batch.errors()) {
+                if (errors.size() >= maxErrors) {
+                    break;
+                }
+                errors.add(error);
+            }
+        }
+
+        Result result() {
+            return new Result(imported, failed, List.copyOf(errors));
+        }
+    }
+
+    private static final String[] CSV_COLUMNS = {"name", "calories", "carbs", "protein", "fats"};
+
+    private final ItemRepository itemRepository;
+    private final ItemCountService itemCountService;
+    private final ConversionService conversionService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int batchSize;
+    private final int maxErrors;
+
+    public ItemImportService(
+        ItemRepository itemRepository,
+        ItemCountService itemCountService,
+        ConversionService conversionService,
+        ObjectMapper objectMapper,
+        Validator validator,
+        @Value("${app.item-import.batch-size:1000}") int batchSize,
+        @Value("${app.item-import.max-errors:1000}") int maxErrors
+    ) {
+        this.itemRepository = itemRepository;
+        this.itemCountService = itemCountService;
+        this.conversionService = conversionService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.batchSize = batchSize;
+        this.maxErrors = maxErrors;
+    }
+
+    // lines are numbered from 1; blank lines and a CSV header line are skipped
+    public Mono<Result> importItems(Flux<String> lines, Format format) {
+        return lines.index()
+                .filter(line -> !line.getT2().isBlank())
+                .filter(line -> !(format == Format.CSV && line.getT1() == 0 && isCsvHeader(line.getT2())))
+                .map(line -> parse(line.getT1() + 1, line.getT2().strip(), format))
+                .buffer(batchSize)
+                .concatMap(this::insertBatch)
+                .collect(() -> new Tally(maxErrors), Tally::add)
+                .map(Tally::result);
+    }
+
+    private Row parse(long number, String line, Format format) {
+        ItemCreateDto dto;
+        try {
+            dto = format == Format.CSV ? parseCsv(line) : objectMapper.readValue(line, ItemCreateDto.class);
+        } catch (JsonProcessingException e) {
+            return Row.failed(number, "Malformed JSON");
+        } catch (IllegalArgumentException e) {
+            return Row.failed(number, e.getMessage());
+        }
+        if (dto == null) {
+            return Row.failed(number, "Malformed JSON");
+        }
+
+        Item item = Objects.requireNonNull(conversionService.convert(dto, Item.class));
+        if (item.getName() == null || item.getName().isBlank()) {
+            return Row.failed(number, "name must not be blank");
+        }
+        Set<ConstraintViolation<Item>> violations = validator.validate(item);
+        if (!violations.isEmpty()) {
+            return Row.failed(number, violations.stream()
+                    .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+        return new Row(number, item, null);
+    }
+
+    private static ItemCreateDto parseCsv(String line) {
+        List<String> columns = splitCsv(line);
+        if (columns.size() != CSV_COLUMNS.length) {
+            throw new IllegalArgumentException("Expected " + CSV_COLUMNS.length + " columns: " + String.join(",", CSV_COLUMNS));
+        }
+        return new ItemCreateDto(
+                columns.get(0),
+                parseInt(columns.get(1), CSV_COLUMNS[1]),
+                parseInt(columns.get(2), CSV_COLUMNS[2]),
+                parseInt(columns.get(3), CSV_COLUMNS[3]),
+                parseInt(columns.get(4), CSV_COLUMNS[4])
+        );
+    }
+
+    private static boolean isCsvHeader(String line) {
+        try {
+            return splitCsv(line).getFirst().equalsIgnoreCase(CSV_COLUMNS[0]);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    // RFC 4180 fields within one line: a quoted field may contain commas and
+    // "" for a quote. Line breaks inside quotes are not supported, since the
+    // upload is read line by line. Unquoted fields are stripped
+    private static List<String> splitCsv(String line) {
+        List<String> columns = new ArrayList<>();
+        StringBuilder column = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    column.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    column.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == ',') {
+                columns.add(wasQuoted ? column.toString() : column.toString().strip());
+                column.setLength(0);
+                wasQuoted = false;
+            } else if (c == '"' && column.toString().isBlank() && !wasQuoted) {
+                column.setLength(0);
+                quoted = true;
+                wasQuoted = true;
+            } else if (wasQuoted) {
+                if (!Character.isWhitespace(c)) {
+                    throw new IllegalArgumentException("Unexpected character after closing quote");
+                }
+            } else {
+                column.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        columns.add(wasQuoted ? column.toString() : column.toString().strip());
+        return columns;
+    }
+
+    private static Integer parseInt(String column, String name) {
+        String value = column.strip();
+        if (value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be an integer");
+        }
+    }
+
+    // A name repeated inside the batch is rejected here, one already stored in
+    // the table is the one ON CONFLICT skips, so neither aborts the insert
+    private Mono<Result> insertBatch(List<Row> rows) {
+        List<RowError> errors = new ArrayList<>();
+        Map<String, Row> unique = new LinkedHashMap<>();
+        for (Row row : rows) {
+            if (row.error() != null) {
+                errors.add(new RowError(row.number(), row.error()));
+            } else if (unique.putIfAbsent(row.item().getName(), row) != null) {
+                errors.add(duplicate(row));
+            }
+        }
+        if (unique.isEmpty()) {
+            return Mono.just(new Result(0, errors.size(), errors));
+        }
+
+        List<Item> items = unique.values().stream().map(Row::item).toList();
+        return itemRepository.insertAllIfAbsent(
+                        items.stream().map(Item::getName).toArray(String[]::new),
+                        items.stream().map(Item::getCalories).toArray(Integer[]::new),
+                        items.stream().map(Item::getCarbs).toArray(Integer[]::new),
+                        items.stream().map(Item::getProtein).toArray(Integer[]::new),
+                        items.stream().map(Item::getFats).toArray(Integer[]::new)
+                )
+                .collect(Collectors.toSet())
+                .map(inserted -> {
+                    itemCountService.onCreated(inserted.size());
+                    unique.forEach((name, row) -> {
+                        if (!inserted.contains(name)) {
+                            errors.add(duplicate(row));
+                        }
+                    });
+                    errors.sort(Comparator.comparingLong(RowError::row));
+                    return new Result(inserted.size(), errors.size(), errors);
+                });
+    }
+
+    private static RowError duplicate(Row row) {
+        return new RowError(row.number(), "Item with name " + row.item().getName() + " already exist");
+    }
+}
@@ -1,12 +1,19 @@
 package org.itmo.secs.services;
 
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
 import lombok.AllArgsConstructor;
 
 import org.itmo.secs.model.entities.Item;
+import org.itmo.secs.model.entities.enums.DishChangeType;
 import org.itmo.secs.repositories.ItemRepository;
 import org.itmo.secs.utils.exceptions.*;
+import org.itmo.secs.utils.paging.Keyset;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
@@ -14,77 +21,107 @@ import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.Flux;
 
+import java.util.Collection;
 import java.util.Objects;
+import java.util.Set;
 
 @Service
 @AllArgsConstructor
 public class ItemService {
     private final ItemRepository itemRepository;
+    private final ItemDishService itemDishService;
+    private final ItemCountService itemCountService;
+    private final DishChangeService dishChangeService;
+    private final Validator validator;
 
-    @Transactional(isolation=Isolation.SERIALIZABLE)
     public Mono<Item> save(Item item) {
-        return findByName(item.getName())
-                .hasElement()
-                .flatMap(x -> {
-                    if (x) {
-                        return Mono.error(new DataIntegrityViolationException("Item with name " + item.getName() + " already exist"));
-                    } else {
-                        return Mono.just(itemRepository.save(item));
-                    }
-                });
+        return validated(item)
+                .flatMap(valid -> itemRepository.insertIfAbsent(valid.getName(), valid.getCalories(), valid.getCarbs(), valid.getProtein(), valid.getFats()))
+                .switchIfEmpty(Mono.error(() -> new DataIntegrityViolationException("Item with name " + item.getName() + " already exist")))
+                .doOnNext(saved -> itemCountService.onCreated());
     }
     
     @Transactional(isolation=Isolation.SERIALIZABLE)
     public Mono<Void> update(Item item) {
-        return findById(item.getId())
+        return validated(item)
+                .flatMap(valid -> findById(valid.getId()))
                 .switchIfEmpty(Mono.error(new ItemNotFoundException("Item with id " + item.getId() + " was not found")))
-                .flatMap(orig -> findByName(item.getName())
-                        .flatMap(x -> {
-                            if (!Objects.equals(x.getId(), item.getId())) {
-                                return Mono.error(new DataIntegrityViolationException("Item with name " + item.getName() + " already exists"));
-                            } else {
-                                return Mono.just(orig);
-                            }
-                        })
-                        .switchIfEmpty(Mono.just(orig))
-                )
                 .flatMap(orig -> {
+                    boolean nutritionChanged = !Objects.equals(orig.getCalories(), item.getCalories())
+                            || !Objects.equals(orig.getProtein(), item.getProtein())
+                            || !Objects.equals(orig.getFats(), item.getFats())
+                            || !Objects.equals(orig.getCarbs(), item.getCarbs());
+
                     // Update the original item's fields
                     orig.setName(item.getName());
                     orig.setCalories(item.getCalories());
                     orig.setProtein(item.getProtein());
                     orig.setFats(item.getFats());
                     orig.setCarbs(item.getCarbs());
-                    return Mono.just(itemRepository.save(orig));
+
+                    // items_name_key decides a name clash, also against a concurrent rename
+                    return itemRepository.save(orig)
+                            .onErrorMap(DuplicateKeyException.class, e ->
+                                    new DataIntegrityViolationException("Item with name " + item.getName() + " already exists"))
+                            .then(nutritionChanged
+                                    ? itemDishService.findDishIdsByItemId(orig.getId())
+                                            .collectList()
+                                            .flatMap(dishIds -> itemDishService.recomputeNutrition(Flux.fromIterable(dishIds))
+                                                    .then(dishChangeService.record(dishIds, DishChangeType.UPDATED))
+                                            )
+                                    : Mono.empty()
+                            );
                 })
                 .then();
     }
 
     public Mono<Item> findById(Long id) {
-        Item item = itemRepository.findById(id).orElse(null);
-        return (item != null) ? Mono.just(item) : Mono.empty();
+        return itemRepository.findById(id);
+    }
+
+    public Flux<Long> findExistingIds(Collection<Long> ids) {
+        return ids.isEmpty() ? Flux.empty() : itemRepository.findExistingIds(ids);
     }
 
     public Mono<Item> findByName(String name) {
-        Item item = itemRepository.findByName(name).orElse(null);
-        return (item != null) ? Mono.just(item) : Mono.empty();
+        return itemRepository.findByName(name);
     }
 
     public Flux<Item> findAll(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        return Flux.fromIterable(itemRepository.findAll(pageable).toList());
+        Pageable pageable = PageRequest.of(page, size, Sort.by("id"));
+        return itemRepository.findAllBy(pageable);
+    }
+
+    public Flux<Item> findAllAfter(long lastId, int size) {
+        return itemRepository.findAllAfter(lastId, size);
+    }
+
+    public Flux<Item> streamAll(long lastId, int chunkSize) {
+        return Keyset.walk(lastId, chunkSize, this::findAllAfter, Item::getId);
     }
 
     public Mono<Long> count() {
-        return Mono.just(itemRepository.count());
+        return itemRepository.count();
     }
 
     @Transactional(isolation=Isolation.SERIALIZABLE)
     public Mono<Void> delete(Long id) {
-        if (itemRepository.findById(id).isEmpty()) {
-            return Mono.error(new ItemNotFoundException("Item with id " + id + " was not found"));
-        }
-        itemRepository.deleteById(id);
-        return Mono.empty();
+        // Dish totals are recomputed after the cascade removes the item from its dishes
+        return itemRepository.findById(id)
+                .switchIfEmpty(Mono.error(new ItemNotFoundException("Item with id " + id + " was not found")))
+                .flatMap(x -> itemDishService.findDishIdsByItemId(id).collectList())
+                .flatMap(dishIds -> itemRepository.deleteById(id)
+                        .then(itemDishService.recomputeNutrition(Flux.fromIterable(dishIds)))
+                        .then(dishChangeService.record(dishIds, DishChangeType.UPDATED))
+                        .doOnSuccess(x -> itemCountService.onDeleted())
+                );
+    }
+
+    // R2DBC does not run bean validation on write, so entity constraints are checked here
+    private <T> Mono<T> validated(T entity) {
+        return Mono.defer(() -> {
+            Set<ConstraintViolation<T>> violations = validator.validate(entity);
+            return violations.isEmpty() ? Mono.just(entity) : Mono.error(new ConstraintViolationException(violations));
+        });
     }
 }
@@ -1,22 +0,0 @@
-package org.itmo.secs.services;
-
-import org.springframework.stereotype.Service;
-
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-
-import lombok.AllArgsConstructor;
-
-@Service
-@AllArgsConstructor
-public class JsonConvService {
-    private final ObjectMapper mapper = new ObjectMapper();
-
-    public String conv(Object o) {
-        try {
-            return mapper.writeValueAsString(o);
-        } catch (JsonProcessingException e) {
-            return null;
-        }
-    }
-}
@@ -6,6 +6,7 @@ import org.itmo.secs.utils.exceptions.DataIntegrityViolationException;
 import org.itmo.secs.utils.exceptions.ItemNotFoundException;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -31,4 +32,10 @@ public class ExceptionTranslator {
     public ErrorDto processConstraintViolationException(ConstraintViolationException ex) {
         return new ErrorDto("Field validation failed");
     }
+
+    @ExceptionHandler(DataAccessResourceFailureException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorDto processDataAccessResourceFailureException(DataAccessResourceFailureException ex) {
+        return new ErrorDto("Database temporarily unavailable");
+    }
 }
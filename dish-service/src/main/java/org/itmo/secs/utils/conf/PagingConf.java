@@ -10,12 +10,15 @@ import lombok.Getter;
 public class PagingConf {
     private final Integer maxPageSize;
     private final Integer defaultPageSize;
+    private final Integer maxBatchSize;
 
     public PagingConf(
         @Value("${app.max-page-size}") Integer maxPageSize,
-        @Value("${app.default-page-size}") Integer defaultPageSize
+        @Value("${app.default-page-size}") Integer defaultPageSize,
+        @Value("${app.max-batch-size:100}") Integer maxBatchSize
     ) {
         this.maxPageSize = maxPageSize;
         this.defaultPageSize = defaultPageSize;
+        this.maxBatchSize = maxBatchSize;
     }
 }
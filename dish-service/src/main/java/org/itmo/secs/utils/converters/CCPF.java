@@ -1,17 +0,0 @@
-package org.itmo.secs.utils.converters;
-
-import lombok.AllArgsConstructor;
-import lombok.Getter;
-import lombok.NoArgsConstructor;
-import lombok.Setter;
-
-@AllArgsConstructor
-@NoArgsConstructor
-@Getter
-@Setter
-public class CCPF {
-    private Integer calories = 0;
-    private Integer carbs = 0;
-    private Integer protein = 0;
-    private Integer fats = 0;
-}
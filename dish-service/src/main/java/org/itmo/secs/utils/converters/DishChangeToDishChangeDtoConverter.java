@@ -0,0 +1,20 @@
+package org.itmo.secs.utils.converters;
+
+import lombok.AllArgsConstructor;
+import org.itmo.secs.model.dto.DishChangeDto;
+import org.itmo.secs.model.entities.DishChange;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+@Component
+@AllArgsConstructor
+public class DishChangeToDishChangeDtoConverter implements Converter<DishChange, DishChangeDto> {
+    @Override
+    public DishChangeDto convert(DishChange dishChange) {
+        return new DishChangeDto(
+            dishChange.getSeq(),
+            dishChange.getDishId(),
+            dishChange.getChangeType().toString()
+        );
+    }
+}
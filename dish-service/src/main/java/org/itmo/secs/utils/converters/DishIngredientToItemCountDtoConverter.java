@@ -0,0 +1,19 @@
+package org.itmo.secs.utils.converters;
+import lombok.AllArgsConstructor;
+import org.itmo.secs.model.dto.ItemCountDto;
+import org.itmo.secs.model.entities.DishIngredient;
+import org.itmo.secs.model.entities.Item;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+@Component
+@AllArgsConstructor
+public class DishIngredientToItemCountDtoConverter implements Converter<DishIngredient, ItemCountDto> {
+    private final ItemToItemDtoConverter itemToItemDtoConverter;
+
+    @Override
+    public ItemCountDto convert(DishIngredient i) {
+        Item item = new Item(i.getId(), i.getName(), i.getCalories(), i.getCarbs(), i.getProtein(), i.getFats());
+        return new ItemCountDto(itemToItemDtoConverter.convert(item), i.getCount());
+    }
+}
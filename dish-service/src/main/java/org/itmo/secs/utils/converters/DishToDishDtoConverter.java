@@ -0,0 +1,23 @@
+package org.itmo.secs.utils.converters;
+
+import lombok.AllArgsConstructor;
+import org.itmo.secs.model.dto.DishDto;
+import org.itmo.secs.model.entities.Dish;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+@Component
+@AllArgsConstructor
+public class DishToDishDtoConverter implements Converter<Dish, DishDto> {
+    @Override
+    public DishDto convert(Dish dish) {
+        return new DishDto(
+            dish.getId(),
+            dish.getName(),
+            dish.getCalories(),
+            dish.getCarbs(),
+            dish.getProtein(),
+            dish.getFats()
+        );
+    }
+}
@@ -0,0 +1,46 @@
+package org.itmo.secs.utils.http;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+
+// Kept identical in dish-service and menu-service: each service is built on its own,
+// and menu-service recomputes dish-service's tag for a single dish
+public final class ETags {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final int PART_SEPARATOR = 0x1f;
+    private static final int ELEMENT_SEPARATOR = 0x1e;
+
+    private ETags() { }
+
+    // Weak validator from a 64-bit FNV-1a hash of the parts' string forms. Parts must be
+    // scalar fields in a fixed order, never a DTO or collection, whose toString is not a contract.
+    // dish-service and menu-service both tag a single dish by (id, name, calories, carbs, protein, fats)
+    public static String weak(Object... parts) {
+        return format(mix(FNV_OFFSET_BASIS, parts));
+    }
+
+    // Tags a list by the parts of each element in order, followed by the extra parts
+    public static <T> String weakList(List<T> elements, Function<T, Object[]> partsOf, Object... extra) {
+        long hash = FNV_OFFSET_BASIS;
+        for (T element : elements) {
+            hash = (mix(hash, partsOf.apply(element)) ^ ELEMENT_SEPARATOR) * FNV_PRIME;
+        }
+        return format(mix(hash, extra));
+    }
+
+    private static long mix(long hash, Object[] parts) {
+        for (Object part : parts) {
+            for (byte b : String.valueOf(part).getBytes(StandardCharsets.UTF_8)) {
+                hash = (hash ^ (b & 0xff)) * FNV_PRIME;
+            }
+            hash = (hash ^ PART_SEPARATOR) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static String format(long hash) {
+        return "W/\"" + Long.toHexString(hash) + "\"";
+    }
+}
@@ -4,9 +4,15 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.google.gson.Gson;
+import org.itmo.secs.config.SmileCodecConfiguration;
 import org.itmo.secs.model.dto.DishAddItemDto;
+import org.itmo.secs.model.dto.DishChangeDto;
 import org.itmo.secs.model.dto.DishCreateDto;
+import org.itmo.secs.model.dto.DishDto;
+import org.itmo.secs.model.dto.DishItemDto;
+import org.itmo.secs.model.dto.DishItemsDto;
 import org.itmo.secs.model.dto.DishUpdateNameDto;
+import org.itmo.secs.model.dto.ItemCountDto;
 import org.itmo.secs.model.entities.Dish;
 import org.itmo.secs.model.entities.Item;
 import org.itmo.secs.repositories.*;
@@ -24,6 +30,8 @@ import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
 import io.restassured.RestAssured;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -41,17 +49,22 @@ public class DishControllerTest {
 
     @DynamicPropertySource
     static void registerPgProperties(DynamicPropertyRegistry registry) {
-        registry.add("spring.datasource.url", pgContainer::getJdbcUrl);
-        registry.add("spring.datasource.username", pgContainer::getUsername);
-        registry.add("spring.datasource.password", pgContainer::getPassword);
-        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
-        // Отключаем Liquibase для тестов
-        registry.add("spring.liquibase.enabled", () -> "false");
+        registry.add("spring.r2dbc.url",
+                () -> "r2dbc:postgresql://" + pgContainer.getHost() + ":" +
+                        pgContainer.getMappedPort(5432) + "/test-db");
+        registry.add("spring.r2dbc.username", pgContainer::getUsername);
+        registry.add("spring.r2dbc.password", pgContainer::getPassword);
+        // Схему накатывает Liquibase через отдельное JDBC-подключение
+        registry.add("spring.liquibase.url", pgContainer::getJdbcUrl);
+        registry.add("spring.liquibase.user", pgContainer::getUsername);
+        registry.add("spring.liquibase.password", pgContainer::getPassword);
+        registry.add("spring.liquibase.change-log", () -> "classpath:db/changelog/db.changelog-master.xml");
         // Отключаем конфиг сервер для тестов
         registry.add("spring.cloud.config.enabled", () -> "false");
         registry.add("spring.cloud.config.import-check.enabled", () -> "false");
         registry.add("app.max-page-size", () -> "10");
         registry.add("app.default-page-size", () -> "5");
+        registry.add("app.max-batch-size", () -> "3");
     }
 
     @Autowired
@@ -63,13 +76,16 @@ public class DishControllerTest {
     @Autowired
     private DishRepository dishRepository;
 
+    @Autowired
+    private DishChangeRepository dishChangeRepository;
+
     private List<Dish> dishes;
     private List<Item> items;
 
     @BeforeEach
     void setUp() {
-        itemRepository.deleteAll();
-        dishRepository.deleteAll();
+        itemRepository.deleteAll().block();
+        dishRepository.deleteAll().block();
 
         RestAssured.baseURI = "http://localhost:" + port;
         RestAssured.port = Integer.parseInt(port);
@@ -85,17 +101,16 @@ public class DishControllerTest {
             item.setCarbs(50);
             items.add(item);
         }
-        items = itemRepository.saveAll(items);
+        items = itemRepository.saveAll(items).collectList().block();
 
         // Create dishes
         dishes = new ArrayList<>();
         for (int i = 1; i <= 5; i++) {
             Dish dish = new Dish();
             dish.setName("asdf" + i);
-            dish.setItems_dishes(new ArrayList<>());
             dishes.add(dish);
         }
-        dishes = dishRepository.saveAll(dishes);
+        dishes = dishRepository.saveAll(dishes).collectList().block();
 
         assertFalse(dishes.isEmpty());
     }
@@ -115,7 +130,19 @@ public class DishControllerTest {
                 .expectBody()
                 .jsonPath("$.name").isEqualTo(dto.name());
 
-        assertTrue(dishRepository.findByName("NEW_DISH").isPresent());
+        assertTrue(dishRepository.findByName("NEW_DISH").blockOptional().isPresent());
+    }
+
+    @Test
+    void testCreateDishWithNullName() {
+        webTestClient.post()
+                .uri("/dish")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Field validation failed");
     }
 
     @Test
@@ -134,7 +161,27 @@ public class DishControllerTest {
 
         assertEquals(
                 "NEW_NAME",
-                dishRepository.findById(dishes.get(0).getId()).orElseThrow().getName()
+                dishRepository.findById(dishes.get(0).getId()).blockOptional().orElseThrow().getName()
+        );
+    }
+
+    @Test
+    void testUpdateToExistingName() {
+        DishUpdateNameDto dto =
+                new DishUpdateNameDto(dishes.get(0).getId(), dishes.get(1).getName());
+
+        webTestClient.put()
+                .uri("/dish")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(dto)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Dish with name " + dishes.get(1).getName() + " already exist");
+
+        assertEquals(
+                dishes.get(0).getName(),
+                dishRepository.findById(dishes.get(0).getId()).blockOptional().orElseThrow().getName()
         );
     }
 
@@ -188,6 +235,157 @@ public class DishControllerTest {
                 .jsonPath("$[1].name").isEqualTo(dishes.get(1).getName());
     }
 
+    @Test
+    void testFindAllWithCursor() {
+        String cursor = webTestClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/dish")
+                        .queryParam("psize", 2)
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists("X-Next-Cursor")
+                .returnResult(String.class)
+                .getResponseHeaders()
+                .getFirst("X-Next-Cursor");
+
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/dish")
+                        .queryParam("psize", 2)
+                        .queryParam("cursor", cursor)
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].id").isEqualTo(dishes.get(2).getId().toString())
+                .jsonPath("$[1].id").isEqualTo(dishes.get(3).getId().toString());
+    }
+
+    @Test
+    void testFindAllWithInvalidCursor() {
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/dish")
+                        .queryParam("cursor", "???")
+                        .build())
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void testStreamAllAsNdjson() {
+        List<Dish> more = new ArrayList<>();
+        for (int i = 6; i <= 25; i++) {
+            Dish dish = new Dish();
+            dish.setName("asdf" + i);
+            more.add(dish);
+        }
+        dishes.addAll(dishRepository.saveAll(more).collectList().block());
+
+        // 25 блюд при app.max-page-size=10 читаются тремя порциями
+        Flux<DishDto> stream = webTestClient.get()
+                .uri("/dish")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(DishDto.class)
+                .getResponseBody();
+
+        StepVerifier.create(stream.map(DishDto::id))
+                .expectNextSequence(dishes.stream().map(Dish::getId).toList())
+                .verifyComplete();
+    }
+
+    @Test
+    void testFindAllByIds() {
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/dish/batch")
+                        .queryParam("ids", dishes.get(0).getId() + "," + dishes.get(2).getId() + ",-1")
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[?(@.name == 'asdf1')]").exists()
+                .jsonPath("$[?(@.name == 'asdf3')]").exists();
+    }
+
+    @Test
+    void testFindByIdNotModified() {
+        Dish dish = dishes.get(0);
+
+        String eTag = webTestClient.get()
+                .uri("/dish?id=" + dish.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists("ETag")
+                .returnResult(String.class)
+                .getResponseHeaders()
+                .getETag();
+
+        webTestClient.get()
+                .uri("/dish?id=" + dish.getId())
+                .header("If-None-Match", eTag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+
+        // После изменения блюда старый ETag больше не подходит
+        webTestClient.put()
+                .uri("/dish")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new DishUpdateNameDto(dish.getId(), "renamed"))
+                .exchange()
+                .expectStatus().isNoContent();
+
+        webTestClient.get()
+                .uri("/dish?id=" + dish.getId())
+                .header("If-None-Match", eTag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("renamed");
+    }
+
+    @Test
+    void testFindByIdAsSmile() {
+        Dish dish = dishes.get(0);
+
+        webTestClient.get()
+                .uri("/dish?id=" + dish.getId())
+                .accept(MediaType.valueOf(SmileCodecConfiguration.APPLICATION_SMILE_VALUE))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(SmileCodecConfiguration.APPLICATION_SMILE_VALUE)
+                .expectBody(DishDto.class)
+                .value(dto -> {
+                    assertEquals(dish.getId(), dto.id());
+                    assertEquals(dish.getName(), dto.name());
+                });
+
+        // Без явного запроса Smile ответ остается JSON
+        webTestClient.get()
+                .uri("/dish?id=" + dish.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON);
+    }
+
+    @Test
+    void testFindAllByIdsOverLimit() {
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/dish/batch")
+                        .queryParam("ids", "1,2,3,4")
+                        .build())
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
     @Test
     void testDelete() {
         Dish dish = dishes.get(0);
@@ -200,7 +398,7 @@ public class DishControllerTest {
                 .exchange()
                 .expectStatus().isNoContent();
 
-        assertFalse(dishRepository.existsById(dish.getId()));
+        assertFalse(dishRepository.existsById(dish.getId()).block());
     }
 
     @Test
@@ -219,6 +417,186 @@ public class DishControllerTest {
                 .exchange()
                 .expectStatus().isNoContent();
     }
+
+    @Test
+    void testAddItemUpdatesDishTotals() {
+        Dish dish = dishes.get(0);
+        Item item = items.get(0);
+
+        webTestClient.put()
+                .uri("/dish/items")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new DishAddItemDto(item.getId(), dish.getId(), 50))
+                .exchange()
+                .expectStatus().isNoContent();
+
+        Dish stored = dishRepository.findById(dish.getId()).blockOptional().orElseThrow();
+        assertEquals(150, stored.getCalories());
+        assertEquals(25, stored.getCarbs());
+        assertEquals(10, stored.getProtein());
+        assertEquals(5, stored.getFats());
+
+        webTestClient.delete()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/dish/items")
+                        .queryParam("item-id", item.getId())
+                        .queryParam("dish-id", dish.getId())
+                        .build())
+                .exchange()
+                .expectStatus().isNoContent();
+
+        stored = dishRepository.findById(dish.getId()).blockOptional().orElseThrow();
+        assertEquals(0, stored.getCalories());
+    }
+
+    @Test
+    void testGetItemsReturnsComposition() {
+        Dish dish = dishes.get(0);
+        for (int i = 0; i < 3; i++) {
+            webTestClient.put()
+                    .uri("/dish/items")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(new DishAddItemDto(items.get(i).getId(), dish.getId(), 10 * (i + 1)))
+                    .exchange()
+                    .expectStatus().isNoContent();
+        }
+
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/dish/items").queryParam("id", dish.getId()).build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(ItemCountDto.class)
+                .value(composition -> {
+                    assertEquals(3, composition.size());
+                    for (int i = 0; i < 3; i++) {
+                        assertEquals(items.get(i).getId(), composition.get(i).item().id());
+                        assertEquals(items.get(i).getName(), composition.get(i).item().name());
+                        assertEquals(10 * (i + 1), composition.get(i).count());
+                    }
+                });
+    }
+
+    @Test
+    void testGetItemsOfMissingDish() {
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/dish/items").queryParam("id", 100000).build())
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void testSetItemsMergesAndReplaces() {
+        Dish dish = dishes.get(0);
+
+        webTestClient.put()
+                .uri("/dish/items/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new DishItemsDto(dish.getId(), List.of(
+                        new DishItemDto(items.get(0).getId(), 100),
+                        new DishItemDto(items.get(1).getId(), 50)
+                )))
+                .exchange()
+                .expectStatus().isNoContent();
+
+        webTestClient.put()
+                .uri("/dish/items/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new DishItemsDto(dish.getId(), List.of(new DishItemDto(items.get(2).getId(), 100))))
+                .exchange()
+                .expectStatus().isNoContent();
+
+        Dish stored = dishRepository.findById(dish.getId()).blockOptional().orElseThrow();
+        assertEquals(750, stored.getCalories());
+
+        webTestClient.put()
+                .uri(uriBuilder -> uriBuilder.path("/dish/items/bulk").queryParam("replace", true).build())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new DishItemsDto(dish.getId(), List.of(new DishItemDto(items.get(1).getId(), 200))))
+                .exchange()
+                .expectStatus().isNoContent();
+
+        stored = dishRepository.findById(dish.getId()).blockOptional().orElseThrow();
+        assertEquals(600, stored.getCalories());
+        assertEquals(100, stored.getCarbs());
+    }
+
+    @Test
+    void testSetItemsWithMissingItemChangesNothing() {
+        Dish dish = dishes.get(0);
+
+        webTestClient.put()
+                .uri(uriBuilder -> uriBuilder.path("/dish/items/bulk").queryParam("replace", true).build())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new DishItemsDto(dish.getId(), List.of(
+                        new DishItemDto(items.get(0).getId(), 100),
+                        new DishItemDto(100000L, 50)
+                )))
+                .exchange()
+                .expectStatus().isNotFound();
+
+        Dish stored = dishRepository.findById(dish.getId()).blockOptional().orElseThrow();
+        assertEquals(0, stored.getCalories());
+    }
+
+    @Test
+    void testSetItemsRejectsRepeatedItem() {
+        Dish dish = dishes.get(0);
+
+        webTestClient.put()
+                .uri("/dish/items/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new DishItemsDto(dish.getId(), List.of(
+                        new DishItemDto(items.get(0).getId(), 100),
+                        new DishItemDto(items.get(0).getId(), 50)
+                )))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void testDishTotalsAreRoundedOnce() {
+        Dish dish = dishes.get(0);
+
+        for (Item item : items.subList(0, 2)) {
+            webTestClient.put()
+                    .uri("/dish/items")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(new DishAddItemDto(item.getId(), dish.getId(), 7))
+                    .exchange()
+                    .expectStatus().isNoContent();
+        }
+
+        // 2 x 3.5 carbs, 2 x 1.4 protein and 2 x 0.7 fats: truncating each share would give 6, 2 and 0
+        Dish stored = dishRepository.findById(dish.getId()).blockOptional().orElseThrow();
+        assertEquals(42, stored.getCalories());
+        assertEquals(7, stored.getCarbs());
+        assertEquals(3, stored.getProtein());
+        assertEquals(1, stored.getFats());
+    }
+
+    @Test
+    void testChangesFeed() {
+        long lastSeq = dishChangeRepository.findLastSeq().block();
+        Dish dish = dishes.get(0);
+
+        webTestClient.delete()
+                .uri("/dish?id=" + dish.getId())
+                .exchange()
+                .expectStatus().isNoContent();
+
+        Flux<DishChangeDto> feed = webTestClient.get()
+                .uri("/dish/changes?after=" + lastSeq)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(DishChangeDto.class)
+                .getResponseBody();
+
+        StepVerifier.create(feed.take(1))
+                .expectNextMatches(change -> change.dishId().equals(dish.getId()) && change.type().equals("DELETED"))
+                .verifyComplete();
+    }
+
 //    @Test
 //    void testDelete() {
 //        Dish dishToDelete = dishes.get(0);
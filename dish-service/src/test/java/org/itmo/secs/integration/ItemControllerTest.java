@@ -21,6 +21,7 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 
 import io.restassured.RestAssured;
 
+import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.*;
 
 @Testcontainers
@@ -37,17 +38,23 @@ public class ItemControllerTest {
 
     @DynamicPropertySource
     static void registerPgProperties(DynamicPropertyRegistry registry) {
-        registry.add("spring.datasource.url", pgContainer::getJdbcUrl);
-        registry.add("spring.datasource.username", pgContainer::getUsername);
-        registry.add("spring.datasource.password", pgContainer::getPassword);
-        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create-drop");
-        // Отключаем Liquibase для тестов
-        registry.add("spring.liquibase.enabled", () -> "false");
+        registry.add("spring.r2dbc.url",
+                () -> "r2dbc:postgresql://" + pgContainer.getHost() + ":" +
+                        pgContainer.getMappedPort(5432) + "/test-db");
+        registry.add("spring.r2dbc.username", pgContainer::getUsername);
+        registry.add("spring.r2dbc.password", pgContainer::getPassword);
+        // Схему накатывает Liquibase через отдельное JDBC-подключение
+        registry.add("spring.liquibase.url", pgContainer::getJdbcUrl);
+        registry.add("spring.liquibase.user", pgContainer::getUsername);
+        registry.add("spring.liquibase.password", pgContainer::getPassword);
+        registry.add("spring.liquibase.change-log", () -> "classpath:db/changelog/db.changelog-master.xml");
         // Отключаем конфиг сервер для тестов
         registry.add("spring.cloud.config.enabled", () -> "false");
         registry.add("spring.cloud.config.import-check.enabled", () -> "false");
         registry.add("app.max-page-size", () -> "10");
         registry.add("app.default-page-size", () -> "5");
+        registry.add("app.item-import.batch-size", () -> "3");
+        registry.add("app.item-import.max-errors", () -> "4");
     }
 
     @Autowired
@@ -57,7 +64,7 @@ public class ItemControllerTest {
 
     @BeforeEach
     void setUp() {
-        itemRepository.deleteAll();
+        itemRepository.deleteAll().block();
 
         RestAssured.baseURI = "http://localhost:" + port;
         RestAssured.port = Integer.parseInt(port);
@@ -73,7 +80,7 @@ public class ItemControllerTest {
             item.setCarbs(50 + i * 5);
             items.add(item);
         }
-        items = itemRepository.saveAll(items);
+        items = itemRepository.saveAll(items).collectList().block();
 
         assertFalse(items.isEmpty());
     }
@@ -91,7 +98,65 @@ public class ItemControllerTest {
                 .then()
                 .statusCode(201);
 
-        assertTrue(itemRepository.findByName("NEW_ITEM").isPresent());
+        assertTrue(itemRepository.findByName("NEW_ITEM").blockOptional().isPresent());
+    }
+
+    @Test
+    void testCreateItemWithShortName() {
+        Gson gson = new Gson();
+
+        RestAssured.given()
+                .contentType("application/json")
+                .body(gson.toJson(new ItemCreateDto("A", 400, 25, 15, 60)))
+                .post("/item")
+                .then()
+                .statusCode(400)
+                .body("message", equalTo("Field validation failed"));
+
+        assertFalse(itemRepository.findByName("A").blockOptional().isPresent());
+    }
+
+    @Test
+    void testCreateItemWithNegativeValue() {
+        Gson gson = new Gson();
+
+        RestAssured.given()
+                .contentType("application/json")
+                .body(gson.toJson(new ItemCreateDto("NEGATIVE", -1, 25, 15, 60)))
+                .post("/item")
+                .then()
+                .statusCode(400)
+                .body("message", equalTo("Field validation failed"));
+
+        assertFalse(itemRepository.findByName("NEGATIVE").blockOptional().isPresent());
+    }
+
+    @Test
+    void testCreateItemWithNullField() {
+        RestAssured.given()
+                .contentType("application/json")
+                .body("{\"name\":\"NO_FATS\",\"calories\":400,\"carbs\":25,\"protein\":15}")
+                .post("/item")
+                .then()
+                .statusCode(400)
+                .body("message", equalTo("Field validation failed"));
+    }
+
+    @Test
+    void testUpdateItemWithNegativeValue() {
+        Gson gson = new Gson();
+
+        Item item = items.get(0);
+        ItemUpdateDto dto = new ItemUpdateDto(item.getId(), item.getName(), 500, -30, 20, 70);
+
+        RestAssured.given()
+                .contentType("application/json")
+                .body(gson.toJson(dto))
+                .put("/item")
+                .then()
+                .statusCode(400);
+
+        assertEquals(item.getCalories(), itemRepository.findById(item.getId()).block().getCalories());
     }
 
     @Test
@@ -115,7 +180,7 @@ public class ItemControllerTest {
                 .then()
                 .statusCode(204);
 
-        Item updatedItem = itemRepository.findById(item.getId()).orElseThrow();
+        Item updatedItem = itemRepository.findById(item.getId()).blockOptional().orElseThrow();
         assertEquals("UPDATED_ITEM", updatedItem.getName());
         assertEquals(500, updatedItem.getCalories());
         assertEquals(30, updatedItem.getProtein());
@@ -123,6 +188,25 @@ public class ItemControllerTest {
         assertEquals(70, updatedItem.getCarbs());
     }
 
+    @Test
+    void testUpdateToExistingName() {
+        Gson gson = new Gson();
+
+        Item item = items.get(0);
+        Item other = items.get(1);
+        ItemUpdateDto dto = new ItemUpdateDto(item.getId(), other.getName(), 500, 70, 30, 20);
+
+        RestAssured.given()
+                .contentType("application/json")
+                .body(gson.toJson(dto))
+                .put("/item")
+                .then()
+                .statusCode(400)
+                .body("message", equalTo("Item with name " + other.getName() + " already exists"));
+
+        assertEquals(item.getName(), itemRepository.findById(item.getId()).block().getName());
+    }
+
     @Test
     void testFind() {
         Item first = items.get(0);
@@ -160,7 +244,7 @@ public class ItemControllerTest {
                 .then()
                 .statusCode(204);
 
-        assertFalse(itemRepository.existsById(item.getId()));
+        assertFalse(itemRepository.existsById(item.getId()).block());
     }
 
     @Test
@@ -171,7 +255,30 @@ public class ItemControllerTest {
                 .get("/item")
                 .then()
                 .statusCode(200)
-                .header("X-Total-Count", "5");
+                .header("X-Total-Count", "5")
+                .header("X-Total-Count-Mode", "exact");
+    }
+
+    @Test
+    void testFindAllWithCursor() {
+        String cursor = RestAssured.given()
+                .param("psize", 3)
+                .get("/item")
+                .then()
+                .statusCode(200)
+                .extract()
+                .header("X-Next-Cursor");
+
+        RestAssured.given()
+                .param("psize", 3)
+                .param("cursor", cursor)
+                .get("/item")
+                .then()
+                .statusCode(200)
+                .header("X-Next-Cursor", nullValue())
+                .body(containsString(items.get(3).getName()))
+                .body(containsString(items.get(4).getName()))
+                .body(not(containsString(items.get(2).getName())));
     }
 
     @Test
@@ -192,6 +299,80 @@ public class ItemControllerTest {
                 .statusCode(400);
     }
 
+    @Test
+    void testImportNdjsonSkipsBadAndDuplicateRows() {
+        String body = String.join("\n",
+                "{\"name\":\"Bread\",\"calories\":220,\"carbs\":53,\"protein\":7,\"fats\":1}",
+                "{\"name\":\"TestItem1\",\"calories\":100,\"carbs\":10,\"protein\":5,\"fats\":1}",
+                "{\"name\":\"Bread\",\"calories\":250,\"carbs\":50,\"protein\":8,\"fats\":2}",
+                "not json",
+                "{\"name\":\"ab\",\"calories\":100,\"carbs\":10,\"protein\":5,\"fats\":1}",
+                "{\"name\":\"Rice\",\"calories\":-1,\"carbs\":10,\"protein\":5,\"fats\":1}",
+                "",
+                "{\"name\":\"Rice\",\"calories\":130,\"carbs\":28,\"protein\":3,\"fats\":0}"
+        );
+
+        RestAssured.given()
+                .contentType("application/x-ndjson")
+                .body(body)
+                .post("/item/import")
+                .then()
+                .statusCode(200)
+                .body("imported", equalTo(2))
+                .body("failed", equalTo(5))
+                .body("errors.row", contains(2, 3, 4, 5));
+
+        assertEquals(220, itemRepository.findByName("Bread").blockOptional().orElseThrow().getCalories());
+        assertEquals(130, itemRepository.findByName("Rice").blockOptional().orElseThrow().getCalories());
+        assertEquals(310, itemRepository.findByName("TestItem1").blockOptional().orElseThrow().getCalories());
+    }
+
+    @Test
+    void testImportCsv() {
+        String body = String.join("\n",
+                "name,calories,carbs,protein,fats",
+                "Oats,370,60,13,7",
+                "TestItem2,1,1,1,1",
+                "Milk,abc,1,1,1",
+                "\"Sugar\",400,100,0,0"
+        );
+
+        RestAssured.given()
+                .contentType("text/csv")
+                .body(body)
+                .post("/item/import")
+                .then()
+                .statusCode(200)
+                .body("imported", equalTo(2))
+                .body("errors.row", contains(3, 4));
+
+        assertTrue(itemRepository.findByName("Oats").blockOptional().isPresent());
+        assertTrue(itemRepository.findByName("Sugar").blockOptional().isPresent());
+        assertFalse(itemRepository.findByName("Milk").blockOptional().isPresent());
+    }
+
+    @Test
+    void testImportCsvQuotedFields() {
+        String body = String.join("\n",
+                "\"Bread, white\",220,53,7,1",
+                "\"Cheese \"\"Gouda\"\"\", 356 ,\"2\",25,27",
+                "\"Butter,82,1,1,1",
+                "\"Jam\"x,250,60,0,0"
+        );
+
+        RestAssured.given()
+                .contentType("text/csv")
+                .body(body)
+                .post("/item/import")
+                .then()
+                .statusCode(200)
+                .body("imported", equalTo(2))
+                .body("errors.row", contains(3, 4));
+
+        assertEquals(220, itemRepository.findByName("Bread, white").blockOptional().orElseThrow().getCalories());
+        assertEquals(356, itemRepository.findByName("Cheese \"Gouda\"").blockOptional().orElseThrow().getCalories());
+    }
+
     @Test
     void testUpdateNonExistingItem() {
         Gson gson = new Gson();
@@ -0,0 +1,89 @@
+package org.itmo.secs.unit;
+
+import org.itmo.secs.model.entities.DishChange;
+import org.itmo.secs.model.entities.enums.DishChangeType;
+import org.itmo.secs.repositories.DishChangeRepository;
+import org.itmo.secs.services.DishChangeService;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+class DishChangeServiceTest {
+
+    private final DishChangeRepository dishChangeRepository = mock(DishChangeRepository.class);
+    private final DishChangeService dishChangeService =
+            new DishChangeService(dishChangeRepository, Duration.ofMillis(10), Duration.ofSeconds(30), Duration.ofDays(7), Duration.ofHours(1));
+
+    private static DishChange change(long seq) {
+        return new DishChange(seq, 100 + seq, DishChangeType.UPDATED, Instant.now());
+    }
+
+    @Test
+    void follow_ShouldEmitChangeCommittedAfterHigherSeq() {
+        DishChange late = change(1);
+        DishChange early = change(2);
+        when(dishChangeRepository.findAllAfter(0L, 500)).thenReturn(Flux.just(early));
+        when(dishChangeRepository.findAllAfter(2L, 500)).thenReturn(Flux.empty());
+        when(dishChangeRepository.findAllBySeqIn(List.of(1L))).thenReturn(Flux.just(late));
+
+        StepVerifier.create(dishChangeService.follow(0L).take(2))
+                .expectNext(early)
+                .expectNext(late)
+                .verifyComplete();
+    }
+
+    @Test
+    void follow_ShouldDropGap_AfterTimeout() {
+        DishChangeService service = new DishChangeService(dishChangeRepository, Duration.ofMillis(10), Duration.ZERO, Duration.ofDays(7), Duration.ofHours(1));
+        DishChange early = change(2);
+        DishChange next = change(3);
+        when(dishChangeRepository.findAllAfter(0L, 500)).thenReturn(Flux.just(early));
+        when(dishChangeRepository.findAllAfter(2L, 500)).thenReturn(Flux.empty(), Flux.just(next));
+
+        StepVerifier.create(service.follow(0L).take(2))
+                .expectNext(early)
+                .expectNext(next)
+                .verifyComplete();
+
+        verify(dishChangeRepository, never()).findAllBySeqIn(any());
+    }
+
+    @Test
+    void follow_ShouldPollAgainRightAway_AfterFullBatch() {
+        DishChangeService service = new DishChangeService(dishChangeRepository, Duration.ofHours(1), Duration.ofSeconds(30), Duration.ofDays(7), Duration.ofHours(1));
+        List<DishChange> backlog = LongStream.rangeClosed(1, 500).mapToObj(DishChangeServiceTest::change).toList();
+        DishChange next = change(501);
+        when(dishChangeRepository.findAllAfter(0L, 500)).thenReturn(Flux.fromIterable(backlog));
+        when(dishChangeRepository.findAllAfter(500L, 500)).thenReturn(Flux.just(next));
+
+        StepVerifier.create(service.follow(0L).take(501))
+                .expectNextSequence(backlog)
+                .expectNext(next)
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void purge_ShouldKeepRecords_WithinGapTimeout() {
+        DishChangeService service = new DishChangeService(dishChangeRepository, Duration.ofMillis(10), Duration.ofSeconds(30), Duration.ofSeconds(1), Duration.ofHours(1));
+        when(dishChangeRepository.deleteAllChangedBefore(any())).thenReturn(Mono.just(3L));
+
+        StepVerifier.create(service.purge())
+                .expectNext(3L)
+                .verifyComplete();
+
+        ArgumentCaptor<Instant> cutoff = ArgumentCaptor.forClass(Instant.class);
+        verify(dishChangeRepository).deleteAllChangedBefore(cutoff.capture());
+        assertTrue(cutoff.getValue().isBefore(Instant.now().minusSeconds(29)));
+    }
+}
@@ -1,8 +1,13 @@
 package org.itmo.secs.unit;
 
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validation;
 import org.itmo.secs.model.entities.Dish;
+import org.itmo.secs.model.entities.DishIngredient;
 import org.itmo.secs.model.entities.Item;
+import org.itmo.secs.model.entities.enums.DishChangeType;
 import org.itmo.secs.repositories.DishRepository;
+import org.itmo.secs.services.DishChangeService;
 import org.itmo.secs.services.DishService;
 import org.itmo.secs.services.ItemDishService;
 import org.itmo.secs.services.ItemService;
@@ -10,13 +15,15 @@ import org.itmo.secs.utils.exceptions.DataIntegrityViolationException;
 import org.itmo.secs.utils.exceptions.ItemNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Pageable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.mockito.Mockito.*;
 
@@ -25,15 +32,21 @@ class DishServiceTest {
     private final ItemDishService itemDishService = mock(ItemDishService.class);
     private final DishRepository dishRepository = mock(DishRepository.class);
     private final ItemService itemService = mock(ItemService.class);
+    private final DishChangeService dishChangeService = mock(DishChangeService.class);
 
     private DishService dishService;
 
     private Dish dish;
     private Item item;
+    private DishIngredient ingredient;
 
     @BeforeEach
     void setUp() {
-        dishService = new DishService(itemDishService, dishRepository, itemService);
+        dishService = new DishService(
+                itemDishService, dishRepository, itemService, dishChangeService,
+                Validation.buildDefaultValidatorFactory().getValidator()
+        );
+        when(dishChangeService.record(anyLong(), any(DishChangeType.class))).thenReturn(Mono.empty());
 
         dish = new Dish();
         dish.setId(1L);
@@ -41,25 +54,27 @@ class DishServiceTest {
 
         item = new Item();
         item.setId(10L);
+
+        ingredient = new DishIngredient(10L, "Milk", 300, 50, 20, 10, 150);
     }
 
     // ---------- SAVE ----------
 
     @Test
     void save_ShouldSaveDish_WhenNotExists() {
-        when(dishRepository.findByName("Test")).thenReturn(java.util.Optional.empty());
-        when(dishRepository.save(dish)).thenReturn(dish);
+        when(dishRepository.insertIfAbsent("Test")).thenReturn(Mono.just(dish));
 
         StepVerifier.create(dishService.save(dish))
                 .expectNext(dish)
                 .verifyComplete();
 
-        verify(dishRepository).save(dish);
+        verify(dishRepository).insertIfAbsent("Test");
+        verify(dishRepository, never()).findByName(any());
     }
 
     @Test
     void save_ShouldThrow_WhenNameExists() {
-        when(dishRepository.findByName("Test")).thenReturn(java.util.Optional.of(dish));
+        when(dishRepository.insertIfAbsent("Test")).thenReturn(Mono.empty());
 
         StepVerifier.create(dishService.save(dish))
                 .expectError(DataIntegrityViolationException.class)
@@ -68,11 +83,22 @@ class DishServiceTest {
         verify(dishRepository, never()).save(any());
     }
 
+    @Test
+    void save_ShouldThrow_WhenNameIsNull() {
+        dish.setName(null);
+
+        StepVerifier.create(dishService.save(dish))
+                .expectError(ConstraintViolationException.class)
+                .verify();
+
+        verify(dishRepository, never()).insertIfAbsent(any());
+    }
+
     // ---------- ADD ITEM ----------
 
     @Test
     void addItem_ShouldWork() {
-        when(dishRepository.findById(1L)).thenReturn(java.util.Optional.of(dish));
+        when(dishRepository.findById(1L)).thenReturn(Mono.just(dish));
         when(itemService.findById(10L)).thenReturn(Mono.just(item));
         when(itemDishService.updateItemDishCount(item, dish, 5))
                 .thenReturn(Mono.empty());
@@ -81,12 +107,13 @@ class DishServiceTest {
                 .verifyComplete();
 
         verify(itemDishService).updateItemDishCount(item, dish, 5);
+        verify(dishChangeService).record(1L, DishChangeType.UPDATED);
     }
 
     @Test
     void addItem_ShouldThrow_WhenDishNotFound() {
         Long dishId = 1L;
-        when(dishRepository.findById(1L)).thenReturn(java.util.Optional.empty());
+        when(dishRepository.findById(1L)).thenReturn(Mono.empty());
 
         StepVerifier.create(dishService.addItem(10L, 1L, 5))
                 .expectErrorMatches(throwable ->
@@ -98,7 +125,7 @@ class DishServiceTest {
 
     @Test
     void deleteItem_ShouldWork() {
-        when(dishRepository.findById(1L)).thenReturn(java.util.Optional.of(dish));
+        when(dishRepository.findById(1L)).thenReturn(Mono.just(dish));
         when(itemService.findById(10L)).thenReturn(Mono.just(item));
         when(itemDishService.delete(item, dish)).thenReturn(Mono.empty());
 
@@ -110,9 +137,42 @@ class DishServiceTest {
 
     // ---------- FIND ----------
 
+    @Test
+    void updateName_ShouldRename() {
+        when(dishRepository.findById(1L)).thenReturn(Mono.just(dish));
+        when(dishRepository.updateName(1L, "Renamed")).thenReturn(Mono.empty());
+
+        Dish renamed = new Dish();
+        renamed.setId(1L);
+        renamed.setName("Renamed");
+
+        StepVerifier.create(dishService.updateName(renamed))
+                .verifyComplete();
+
+        verify(dishRepository, never()).findByName(any());
+        verify(dishChangeService).record(1L, DishChangeType.UPDATED);
+    }
+
+    @Test
+    void updateName_ShouldThrow_WhenNameTaken() {
+        when(dishRepository.findById(1L)).thenReturn(Mono.just(dish));
+        when(dishRepository.updateName(1L, "Taken"))
+                .thenReturn(Mono.error(new DuplicateKeyException("duplicate key value violates unique constraint \"dishes_name_key\"")));
+
+        Dish renamed = new Dish();
+        renamed.setId(1L);
+        renamed.setName("Taken");
+
+        StepVerifier.create(dishService.updateName(renamed))
+                .expectError(DataIntegrityViolationException.class)
+                .verify();
+
+        verify(dishChangeService, never()).record(anyLong(), any(DishChangeType.class));
+    }
+
     @Test
     void findById_ShouldReturnDish() {
-        when(dishRepository.findById(1L)).thenReturn(java.util.Optional.of(dish));
+        when(dishRepository.findById(1L)).thenReturn(Mono.just(dish));
 
         StepVerifier.create(dishService.findById(1L))
                 .expectNext(dish)
@@ -121,7 +181,7 @@ class DishServiceTest {
 
     @Test
     void findByName_ShouldReturnDish() {
-        when(dishRepository.findByName("Test")).thenReturn(java.util.Optional.of(dish));
+        when(dishRepository.findByName("Test")).thenReturn(Mono.just(dish));
 
         StepVerifier.create(dishService.findByName("Test"))
                 .expectNext(dish)
@@ -132,17 +192,19 @@ class DishServiceTest {
 
     @Test
     void delete_ShouldDeleteDish() {
-        when(dishRepository.findById(1L)).thenReturn(java.util.Optional.of(dish));
+        when(dishRepository.findById(1L)).thenReturn(Mono.just(dish));
+        when(dishRepository.deleteById(1L)).thenReturn(Mono.empty());
 
         StepVerifier.create(dishService.delete(1L))
                 .verifyComplete();
 
         verify(dishRepository).deleteById(1L);
+        verify(dishChangeService).record(1L, DishChangeType.DELETED);
     }
 
     @Test
     void delete_ShouldThrow_WhenNotExists() {
-        when(dishRepository.findById(1L)).thenReturn(java.util.Optional.empty());
+        when(dishRepository.findById(1L)).thenReturn(Mono.empty());
 
         StepVerifier.create(dishService.delete(1L))
                 .expectError(ItemNotFoundException.class)
@@ -153,22 +215,92 @@ class DishServiceTest {
 
     @Test
     void makeList_ShouldReturnFlux() {
-        when(dishRepository.findById(1L)).thenReturn(java.util.Optional.of(dish));
-        when(itemDishService.findAllByDishId(1L)).thenReturn(Flux.empty());
+        when(dishRepository.findById(1L)).thenReturn(Mono.just(dish));
+        when(itemDishService.findIngredientsByDishId(1L)).thenReturn(Flux.just(ingredient));
 
         StepVerifier.create(dishService.makeListOfItems(1L))
+                .expectNext(ingredient)
                 .verifyComplete();
+
+        verifyNoInteractions(itemService);
+    }
+
+    @Test
+    void makeList_ShouldThrow_WhenDishNotExists() {
+        when(dishRepository.findById(1L)).thenReturn(Mono.empty());
+
+        StepVerifier.create(dishService.makeListOfItems(1L))
+                .expectError(ItemNotFoundException.class)
+                .verify();
+    }
+
+    // ---------- SET ITEMS ----------
+
+    @Test
+    void setItems_ShouldWriteAllCounts_WhenItemsExist() {
+        Map<Long, Integer> counts = Map.of(10L, 150, 11L, 30);
+        when(dishRepository.findById(1L)).thenReturn(Mono.just(dish));
+        when(itemService.findExistingIds(counts.keySet())).thenReturn(Flux.just(10L, 11L));
+        when(itemDishService.updateItemDishCounts(dish, counts, true)).thenReturn(Mono.empty());
+
+        StepVerifier.create(dishService.setItems(1L, counts, true))
+                .verifyComplete();
+
+        verify(itemDishService).updateItemDishCounts(dish, counts, true);
+        verify(dishChangeService).record(1L, DishChangeType.UPDATED);
+    }
+
+    @Test
+    void setItems_ShouldThrow_WhenItemNotExists() {
+        Map<Long, Integer> counts = Map.of(10L, 150, 11L, 30);
+        when(dishRepository.findById(1L)).thenReturn(Mono.just(dish));
+        when(itemService.findExistingIds(counts.keySet())).thenReturn(Flux.just(10L));
+
+        StepVerifier.create(dishService.setItems(1L, counts, false))
+                .expectError(ItemNotFoundException.class)
+                .verify();
+
+        verify(itemDishService, never()).updateItemDishCounts(any(), any(), anyBoolean());
+    }
+
+    @Test
+    void setItems_ShouldThrow_WhenDishNotExists() {
+        when(dishRepository.findById(1L)).thenReturn(Mono.empty());
+
+        StepVerifier.create(dishService.setItems(1L, Map.of(10L, 150), false))
+                .expectError(ItemNotFoundException.class)
+                .verify();
     }
 
     // ---------- FIND ALL ----------
 
     @Test
     void findAll_ShouldReturnFlux() {
-        when(dishRepository.findAll(any(Pageable.class)))
-                .thenReturn(new PageImpl<>(List.of(dish)));
+        when(dishRepository.findAllBy(any(Pageable.class)))
+                .thenReturn(Flux.just(dish));
 
         StepVerifier.create(dishService.findAll(0, 10))
                 .expectNext(dish)
                 .verifyComplete();
     }
+
+    @Test
+    void findAllAfter_ShouldReturnFlux() {
+        when(dishRepository.findAllAfter(0L, 10))
+                .thenReturn(Flux.just(dish));
+
+        StepVerifier.create(dishService.findAllAfter(0L, 10))
+                .expectNext(dish)
+                .verifyComplete();
+    }
+
+    @Test
+    void findAllByIds_ShouldQueryDistinctIds() {
+        when(dishRepository.findAllById(Set.of(1L, 2L)))
+                .thenReturn(Flux.just(dish));
+
+        StepVerifier.create(dishService.findAllByIds(List.of(1L, 2L, 1L)))
+                .expectNext(dish)
+                .verifyComplete();
+    }
 }
@@ -0,0 +1,43 @@
+package org.itmo.secs.unit;
+
+import org.itmo.secs.controllers.ItemController;
+import org.itmo.secs.services.ItemCountService;
+import org.itmo.secs.services.ItemImportService;
+import org.itmo.secs.services.ItemService;
+import org.itmo.secs.utils.advices.ExceptionTranslator;
+import org.itmo.secs.utils.conf.PagingConf;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import static org.mockito.Mockito.*;
+
+class ExceptionTranslatorTest {
+
+    private final ItemService itemService = mock(ItemService.class);
+    private final WebTestClient webTestClient = WebTestClient
+            .bindToController(new ItemController(
+                    mock(ConversionService.class),
+                    itemService,
+                    mock(ItemCountService.class),
+                    new PagingConf(50, 10, 100),
+                    mock(ItemImportService.class)
+            ))
+            .controllerAdvice(new ExceptionTranslator())
+            .build();
+
+    @Test
+    void dataAccessResourceFailure_ShouldBeServiceUnavailable() {
+        when(itemService.findById(1L))
+                .thenReturn(Mono.error(new DataAccessResourceFailureException("Connection refused")));
+
+        webTestClient.get()
+                .uri("/item?id=1")
+                .exchange()
+                .expectStatus().isEqualTo(503)
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Database temporarily unavailable");
+    }
+}
@@ -0,0 +1,72 @@
+package org.itmo.secs.unit;
+
+import org.itmo.secs.repositories.ItemRepository;
+import org.itmo.secs.services.ItemCountService;
+import org.itmo.secs.services.ItemCountService.Mode;
+import org.itmo.secs.services.ItemCountService.TotalCount;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.mockito.Mockito.*;
+
+class ItemCountServiceTest {
+
+    private final ItemRepository itemRepository = mock(ItemRepository.class);
+
+    private ItemCountService service(Mode mode) {
+        return new ItemCountService(itemRepository, mode, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void count_ShouldRunExactCount_InExactMode() {
+        when(itemRepository.count()).thenReturn(Mono.just(5L));
+
+        StepVerifier.create(service(Mode.EXACT).count())
+                .expectNext(new TotalCount(5L, Mode.EXACT))
+                .verifyComplete();
+    }
+
+    @Test
+    void count_ShouldUseStatistics_InEstimatedMode() {
+        when(itemRepository.estimateCount()).thenReturn(Mono.just(1000L));
+
+        StepVerifier.create(service(Mode.ESTIMATED).count())
+                .expectNext(new TotalCount(1000L, Mode.ESTIMATED))
+                .verifyComplete();
+
+        verify(itemRepository, never()).count();
+    }
+
+    @Test
+    void count_ShouldFallBackToExact_WhenTableWasNotAnalyzed() {
+        when(itemRepository.estimateCount()).thenReturn(Mono.just(-1L));
+        when(itemRepository.count()).thenReturn(Mono.just(5L));
+
+        StepVerifier.create(service(Mode.ESTIMATED).count())
+                .expectNext(new TotalCount(5L, Mode.EXACT))
+                .verifyComplete();
+    }
+
+    @Test
+    void count_ShouldServeCachedValue_AdjustedByWrites() {
+        when(itemRepository.count()).thenReturn(Mono.just(5L));
+        ItemCountService itemCountService = service(Mode.CACHED);
+
+        StepVerifier.create(itemCountService.count())
+                .expectNext(new TotalCount(5L, Mode.EXACT))
+                .verifyComplete();
+
+        itemCountService.onCreated();
+        itemCountService.onCreated();
+        itemCountService.onDeleted();
+
+        StepVerifier.create(itemCountService.count())
+                .expectNext(new TotalCount(6L, Mode.CACHED))
+                .verifyComplete();
+
+        verify(itemRepository, times(1)).count();
+    }
+}
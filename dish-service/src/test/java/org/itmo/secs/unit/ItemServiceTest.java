@@ -1,30 +1,45 @@
 package org.itmo.secs.unit;
 
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validation;
 import org.itmo.secs.model.entities.Item;
+import org.itmo.secs.model.entities.enums.DishChangeType;
 import org.itmo.secs.repositories.ItemRepository;
+import org.itmo.secs.services.DishChangeService;
+import org.itmo.secs.services.ItemCountService;
+import org.itmo.secs.services.ItemDishService;
 import org.itmo.secs.services.ItemService;
 import org.itmo.secs.utils.exceptions.DataIntegrityViolationException;
 import org.itmo.secs.utils.exceptions.ItemNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.util.List;
-import java.util.Optional;
 
 import static org.mockito.Mockito.*;
 
 class ItemServiceTest {
 
     private final ItemRepository itemRepository = mock(ItemRepository.class);
-    private final ItemService itemService = new ItemService(itemRepository);
+    private final ItemDishService itemDishService = mock(ItemDishService.class);
+    private final ItemCountService itemCountService = mock(ItemCountService.class);
+    private final DishChangeService dishChangeService = mock(DishChangeService.class);
+    private final ItemService itemService = new ItemService(
+            itemRepository, itemDishService, itemCountService, dishChangeService,
+            Validation.buildDefaultValidatorFactory().getValidator()
+    );
 
     private Item item;
 
     @BeforeEach
     void setUp() {
+        when(dishChangeService.record(anyCollection(), any(DishChangeType.class))).thenReturn(Mono.empty());
+
         item = new Item();
         item.setId(1L);
         item.setName("Test Item");
@@ -38,34 +53,48 @@ class ItemServiceTest {
 
     @Test
     void save_ShouldSaveItem_WhenNotExists() {
-        when(itemRepository.findByName("Test Item")).thenReturn(Optional.empty());
-        when(itemRepository.save(item)).thenReturn(item);
+        when(itemRepository.insertIfAbsent("Test Item", 300, 50, 20, 10)).thenReturn(Mono.just(item));
 
         StepVerifier.create(itemService.save(item))
                 .expectNext(item)
                 .verifyComplete();
 
-        verify(itemRepository).save(item);
+        verify(itemRepository).insertIfAbsent("Test Item", 300, 50, 20, 10);
+        verify(itemRepository, never()).findByName(any());
+        verify(itemCountService).onCreated();
     }
 
     @Test
     void save_ShouldThrow_WhenNameExists() {
-        when(itemRepository.findByName("Test Item")).thenReturn(Optional.of(item));
+        when(itemRepository.insertIfAbsent("Test Item", 300, 50, 20, 10)).thenReturn(Mono.empty());
 
         StepVerifier.create(itemService.save(item))
                 .expectError(DataIntegrityViolationException.class)
                 .verify();
 
-        verify(itemRepository, never()).save(any());
+        verify(itemCountService, never()).onCreated();
+    }
+
+    @Test
+    void save_ShouldThrow_WhenConstraintsViolated() {
+        item.setName("ab");
+        item.setCalories(-1);
+
+        StepVerifier.create(itemService.save(item))
+                .expectError(ConstraintViolationException.class)
+                .verify();
+
+        verify(itemRepository, never()).insertIfAbsent(any(), any(), any(), any(), any());
     }
 
     // ---------- UPDATE ----------
 
     @Test
     void update_ShouldUpdateItem_WhenValid() {
-        when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
-        when(itemRepository.findByName("Updated Name")).thenReturn(Optional.empty());
-        when(itemRepository.save(any(Item.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(itemRepository.findById(1L)).thenReturn(Mono.just(item));
+        when(itemRepository.save(any(Item.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(itemDishService.findDishIdsByItemId(1L)).thenReturn(Flux.just(7L, 8L));
+        when(itemDishService.recomputeNutrition(any())).thenReturn(Mono.empty());
 
         Item updatedItem = new Item();
         updatedItem.setId(1L);
@@ -78,11 +107,33 @@ class ItemServiceTest {
         StepVerifier.create(itemService.update(updatedItem))
                 .verifyComplete();
 
-        verify(itemRepository).save(any(Item.class));}
+        verify(itemRepository).save(any(Item.class));
+        verify(itemDishService).recomputeNutrition(any());
+        verify(dishChangeService).record(List.of(7L, 8L), DishChangeType.UPDATED);
+    }
+
+    @Test
+    void update_ShouldNotRecomputeDishes_WhenOnlyNameChanged() {
+        when(itemRepository.findById(1L)).thenReturn(Mono.just(item));
+        when(itemRepository.save(any(Item.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        Item renamedItem = new Item();
+        renamedItem.setId(1L);
+        renamedItem.setName("Updated Name");
+        renamedItem.setCalories(300);
+        renamedItem.setProtein(20);
+        renamedItem.setFats(10);
+        renamedItem.setCarbs(50);
+
+        StepVerifier.create(itemService.update(renamedItem))
+                .verifyComplete();
+
+        verify(itemDishService, never()).recomputeNutrition(any());
+    }
 
     @Test
     void update_ShouldThrow_WhenItemNotFound() {
-        when(itemRepository.findById(1L)).thenReturn(Optional.empty());
+        when(itemRepository.findById(1L)).thenReturn(Mono.empty());
 
         StepVerifier.create(itemService.update(item))
                 .expectError(ItemNotFoundException.class)
@@ -93,29 +144,31 @@ class ItemServiceTest {
 
     @Test
     void update_ShouldThrow_WhenNameExistsForDifferentItem() {
-        Item existingItem = new Item();
-        existingItem.setId(2L);
-        existingItem.setName("Existing Name");
-
-        when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
-        when(itemRepository.findByName("Existing Name")).thenReturn(Optional.of(existingItem));
+        when(itemRepository.findById(1L)).thenReturn(Mono.just(item));
+        when(itemRepository.save(any(Item.class)))
+                .thenReturn(Mono.error(new DuplicateKeyException("duplicate key value violates unique constraint \"items_name_key\"")));
 
         Item updatedItem = new Item();
         updatedItem.setId(1L);
         updatedItem.setName("Existing Name");
+        updatedItem.setCalories(300);
+        updatedItem.setProtein(20);
+        updatedItem.setFats(10);
+        updatedItem.setCarbs(50);
 
         StepVerifier.create(itemService.update(updatedItem))
                 .expectError(DataIntegrityViolationException.class)
                 .verify();
 
-        verify(itemRepository, never()).save(any());
+        verify(itemRepository, never()).findByName(any());
+        verify(itemDishService, never()).recomputeNutrition(any());
     }
 
     // ---------- FIND ----------
 
     @Test
     void findById_ShouldReturnItem() {
-        when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
+        when(itemRepository.findById(1L)).thenReturn(Mono.just(item));
 
         StepVerifier.create(itemService.findById(1L))
                 .expectNext(item)
@@ -124,7 +177,7 @@ class ItemServiceTest {
 
     @Test
     void findById_ShouldReturnEmpty_WhenNotFound() {
-        when(itemRepository.findById(1L)).thenReturn(Optional.empty());
+        when(itemRepository.findById(1L)).thenReturn(Mono.empty());
 
         StepVerifier.create(itemService.findById(1L))
                 .verifyComplete();
@@ -132,7 +185,7 @@ class ItemServiceTest {
 
     @Test
     void findByName_ShouldReturnItem() {
-        when(itemRepository.findByName("Test Item")).thenReturn(Optional.of(item));
+        when(itemRepository.findByName("Test Item")).thenReturn(Mono.just(item));
 
         StepVerifier.create(itemService.findByName("Test Item"))
                 .expectNext(item)
@@ -141,7 +194,7 @@ class ItemServiceTest {
 
     @Test
     void findByName_ShouldReturnEmpty_WhenNotFound() {
-        when(itemRepository.findByName("Non Existent")).thenReturn(Optional.empty());
+        when(itemRepository.findByName("Non Existent")).thenReturn(Mono.empty());
 
         StepVerifier.create(itemService.findByName("Non Existent"))
                 .verifyComplete();
@@ -151,23 +204,28 @@ class ItemServiceTest {
 
     @Test
     void delete_ShouldDeleteItem() {
-        when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
+        when(itemRepository.findById(1L)).thenReturn(Mono.just(item));
+        when(itemRepository.deleteById(1L)).thenReturn(Mono.empty());
+        when(itemDishService.findDishIdsByItemId(1L)).thenReturn(Flux.just(7L));
+        when(itemDishService.recomputeNutrition(any())).thenReturn(Mono.empty());
 
         StepVerifier.create(itemService.delete(1L))
                 .verifyComplete();
 
         verify(itemRepository).deleteById(1L);
+        verify(itemDishService).recomputeNutrition(any());
+        verify(dishChangeService).record(List.of(7L), DishChangeType.UPDATED);
     }
 
     @Test
     void delete_ShouldThrow_WhenNotExists() {
-        when(itemRepository.findById(1L)).thenReturn(Optional.empty());
+        when(itemRepository.findById(1L)).thenReturn(Mono.empty());
 
         StepVerifier.create(itemService.delete(1L))
                 .expectError(ItemNotFoundException.class)
                 .verify();
 
-        verify(itemRepository, never()).deleteById(any());
+        verify(itemRepository, never()).deleteById(anyLong());
     }
 
     // ---------- FIND ALL ----------
@@ -175,8 +233,8 @@ class ItemServiceTest {
     @Test
     void findAll_ShouldReturnFlux() {
         List<Item> itemsList = List.of(item);
-        when(itemRepository.findAll(any(Pageable.class)))
-                .thenReturn(new PageImpl<>(itemsList));
+        when(itemRepository.findAllBy(any(Pageable.class)))
+                .thenReturn(Flux.fromIterable(itemsList));
 
         StepVerifier.create(itemService.findAll(0, 10))
                 .expectNext(item)
@@ -185,18 +243,28 @@ class ItemServiceTest {
 
     @Test
     void findAll_ShouldReturnEmptyFlux() {
-        when(itemRepository.findAll(any(Pageable.class)))
-                .thenReturn(new PageImpl<>(List.of()));
+        when(itemRepository.findAllBy(any(Pageable.class)))
+                .thenReturn(Flux.empty());
 
         StepVerifier.create(itemService.findAll(0, 10))
                 .verifyComplete();
     }
 
+    @Test
+    void findAllAfter_ShouldReturnFlux() {
+        when(itemRepository.findAllAfter(1L, 10))
+                .thenReturn(Flux.just(item));
+
+        StepVerifier.create(itemService.findAllAfter(1L, 10))
+                .expectNext(item)
+                .verifyComplete();
+    }
+
     // ---------- COUNT ----------
 
     @Test
     void count_ShouldReturnCount() {
-        when(itemRepository.count()).thenReturn(5L);
+        when(itemRepository.count()).thenReturn(Mono.just(5L));
 
         StepVerifier.create(itemService.count())
                 .expectNext(5L)
@@ -205,7 +273,7 @@ class ItemServiceTest {
 
     @Test
     void count_ShouldReturnZero() {
-        when(itemRepository.count()).thenReturn(0L);
+        when(itemRepository.count()).thenReturn(Mono.just(0L));
 
         StepVerifier.create(itemService.count())
                 .expectNext(0L)
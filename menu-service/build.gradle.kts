@@ -26,6 +26,9 @@ dependencies {
     implementation("org.postgresql:r2dbc-postgresql:1.1.1.RELEASE")
     implementation("io.projectreactor:reactor-core:3.8.2")
     implementation("org.springframework.boot:spring-boot-starter-webflux")
+    implementation("com.fasterxml.jackson.dataformat:jackson-dataformat-smile")
+    implementation("org.springframework.boot:spring-boot-starter-actuator")
+    implementation("com.github.ben-manes.caffeine:caffeine")
 
     implementation("org.springframework.boot:spring-boot-starter-validation")
     implementation("org.springframework.cloud:spring-cloud-starter-config")
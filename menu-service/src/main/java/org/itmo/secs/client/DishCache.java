@@ -0,0 +1,87 @@
+package org.itmo.secs.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.itmo.secs.model.dto.DishDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+@Component
+public class DishCache {
+    private record Entry(DishDto dish, long loadedAt) { }
+
+    private final Cache<Long, Entry> cache;
+    private final long ttlNanos;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter staleHits;
+    private final Counter evictions;
+
+    // Entries are fresh for app.dish-cache.ttl; past that they are only served while
+    // dish-service is unavailable, until app.dish-cache.stale-ttl removes them
+    public DishCache(
+        MeterRegistry meterRegistry,
+        @Value("${app.dish-cache.max-size:10000}") long maxSize,
+        @Value("${app.dish-cache.ttl:60s}") Duration ttl,
+        @Value("${app.dish-cache.stale-ttl:30m}") Duration staleTtl
+    ) {
+        this.ttlNanos = ttl.toNanos();
+        this.hits = meterRegistry.counter("dish.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("dish.cache.requests", "result", "miss");
+        this.staleHits = meterRegistry.counter("dish.cache.requests", "result", "stale");
+        this.evictions = meterRegistry.counter("dish.cache.evictions");
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(staleTtl)
+                .removalListener((Long id, Entry entry, RemovalCause cause) -> {
+                    if (cause.wasEvicted()) {
+                        evictions.increment();
+                    }
+                })
+                .build();
+        meterRegistry.gaugeMapSize("dish.cache.size", List.of(), cache.asMap());
+    }
+
+    public Optional<DishDto> getFresh(Long dishId) {
+        Entry entry = cache.getIfPresent(dishId);
+        if (entry != null && System.nanoTime() - entry.loadedAt() < ttlNanos) {
+            hits.increment();
+            return Optional.of(entry.dish());
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    public Optional<DishDto> getStale(Long dishId) {
+        Entry entry = cache.getIfPresent(dishId);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        staleHits.increment();
+        return Optional.of(entry.dish());
+    }
+
+    // Cached copy of any age, for revalidation; not counted as a cache request
+    public Optional<DishDto> peek(Long dishId) {
+        return Optional.ofNullable(cache.getIfPresent(dishId)).map(Entry::dish);
+    }
+
+    public void put(DishDto dish) {
+        cache.put(dish.id(), new Entry(dish, System.nanoTime()));
+    }
+
+    public void invalidate(Long dishId) {
+        cache.invalidate(dishId);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
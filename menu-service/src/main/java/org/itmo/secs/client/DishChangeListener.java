@@ -0,0 +1,79 @@
+package org.itmo.secs.client;
+
+import jakarta.annotation.PreDestroy;
+import org.itmo.secs.model.dto.DishChangeDto;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactorLoadBalancerExchangeFilterFunction;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Follows the dish-service change feed and evicts changed dishes from DishCache.
+// Eviction is best-effort: a change that commits after a reconnect has moved past its
+// seq, or later than dish-service's gap timeout, is missed, and the DishCache TTL is
+// then what bounds how long the stale dish is served
+@Component
+@ConditionalOnProperty(name = "app.dish-changes.enabled", havingValue = "true", matchIfMissing = true)
+public class DishChangeListener {
+    private final WebClient webClient;
+    private final DishCache dishCache;
+    private final AtomicReference<Long> lastSeq = new AtomicReference<>();
+    private Disposable subscription;
+
+    public DishChangeListener(
+        WebClient.Builder webClientBuilder,
+        ReactorLoadBalancerExchangeFilterFunction loadBalancerFunction,
+        DishCache dishCache
+    ) {
+        this.webClient = webClientBuilder
+                .baseUrl("http://dish-service")
+                .filter(loadBalancerFunction)
+                .build();
+        this.dishCache = dishCache;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        subscription = Flux.defer(this::changes)
+                .repeatWhen(completions -> completions.delayElements(Duration.ofSeconds(1)))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    private Flux<DishChangeDto> changes() {
+        Long after = lastSeq.get();
+        if (after == null) {
+            // No position in the feed yet, so changes made while disconnected are unknown
+            dishCache.invalidateAll();
+        }
+        return webClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/dish/changes")
+                        .queryParamIfPresent("after", Optional.ofNullable(after))
+                        .build())
+                .accept(MediaType.APPLICATION_NDJSON)
+                .retrieve()
+                .bodyToFlux(DishChangeDto.class)
+                .doOnNext(change -> {
+                    dishCache.invalidate(change.dishId());
+                    // Late commits arrive below the highest seq already seen
+                    lastSeq.accumulateAndGet(change.seq(), (prev, seq) -> prev == null ? seq : Math.max(prev, seq));
+                });
+    }
+}
@@ -0,0 +1,142 @@
+package org.itmo.secs.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.itmo.secs.model.dto.DishDto;
+import org.itmo.secs.utils.exceptions.NotModifiedException;
+import org.itmo.secs.utils.exceptions.ServiceUnavailableException;
+import org.itmo.secs.utils.http.ETags;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Component
+public class DishLoader {
+    private final DishServiceClient dishServiceClient;
+    private final DishCache dishCache;
+    private final SingleFlight<Long, DishDto> byId;
+    private final SingleFlight<Long, DishDto> byIds;
+    private final int batchSize;
+    private final Counter notModified;
+    private final Counter modified;
+
+    public DishLoader(
+        DishServiceClient dishServiceClient,
+        DishCache dishCache,
+        MeterRegistry meterRegistry,
+        @Value("${app.dish-batch-size:100}") int batchSize
+    ) {
+        this.dishServiceClient = dishServiceClient;
+        this.dishCache = dishCache;
+        this.byId = new SingleFlight<>(meterRegistry, "dish-service", "getById");
+        this.byIds = new SingleFlight<>(meterRegistry, "dish-service", "getByIds");
+        this.batchSize = batchSize;
+        this.notModified = meterRegistry.counter("dish.cache.revalidations", "result", "not_modified");
+        this.modified = meterRegistry.counter("dish.cache.revalidations", "result", "modified");
+    }
+
+    public static DishDto notFound(Long dishId) {
+        return new DishDto(dishId, "(not found)", 0, 0, 0, 0);
+    }
+
+    // Must match the parts and order dish-service uses for the ETag of a single dish
+    public static String eTagOf(DishDto dish) {
+        return ETags.weak(partsOf(dish));
+    }
+
+    public static Object[] partsOf(DishDto dish) {
+        return new Object[] {dish.id(), dish.name(), dish.calories(), dish.carbs(), dish.protein(), dish.fats()};
+    }
+
+    public Mono<DishDto> load(Long dishId) {
+        return Mono.defer(() -> dishCache.getFresh(dishId)
+                .map(Mono::just)
+                .orElseGet(() -> byId.execute(dishId, this::fetch)
+                        .doOnNext(dishCache::put)
+                        .onErrorResume(ServiceUnavailableException.class, e -> dishCache.getStale(dishId)
+                                .map(Mono::just)
+                                .orElseGet(() -> Mono.error(e))
+                        )
+                )
+        );
+    }
+
+    // An expired copy is revalidated with If-None-Match, so an unchanged dish costs
+    // a 304 instead of the whole DTO. The 304 arrives either as NotModifiedException
+    // from the error decoder or as a response without a body
+    private Mono<DishDto> fetch(Long dishId) {
+        return dishCache.peek(dishId)
+                .map(cached -> dishServiceClient.revalidateById(dishId, eTagOf(cached))
+                        .doOnNext(dish -> modified.increment())
+                        .onErrorResume(NotModifiedException.class, e -> Mono.empty())
+                        .switchIfEmpty(Mono.fromSupplier(() -> {
+                            notModified.increment();
+                            return cached;
+                        }))
+                )
+                .orElseGet(() -> dishServiceClient.getById(dishId));
+    }
+
+    // Every distinct id is taken from the cache or requested once, in chunks of
+    // app.dish-batch-size per call. Ids another menu list is already fetching are
+    // joined instead of requested again, so a burst of overlapping lists asks
+    // for each dish once. Ids the dish-service does not return map to the
+    // "(not found)" placeholder
+    public Mono<Map<Long, DishDto>> loadAll(Collection<Long> dishIds) {
+        return Mono.defer(() -> {
+            LinkedHashSet<Long> distinctIds = new LinkedHashSet<>(dishIds);
+            Map<Long, DishDto> cached = new HashMap<>();
+            List<Long> missingIds = new ArrayList<>();
+            for (Long dishId : distinctIds) {
+                dishCache.getFresh(dishId).ifPresentOrElse(dish -> cached.put(dishId, dish), () -> missingIds.add(dishId));
+            }
+
+            return Flux.fromIterable(missingIds)
+                    .buffer(batchSize)
+                    .concatMap(this::loadChunk)
+                    .collectMap(DishDto::id)
+                    .map(found -> {
+                        Map<Long, DishDto> dishes = new LinkedHashMap<>();
+                        for (Long dishId : distinctIds) {
+                            DishDto dish = cached.containsKey(dishId) ? cached.get(dishId) : found.get(dishId);
+                            dishes.put(dishId, dish != null ? dish : notFound(dishId));
+                        }
+                        return dishes;
+                    });
+        });
+    }
+
+    private Flux<DishDto> loadChunk(List<Long> dishIds) {
+        return byIds.executeAll(dishIds, this::loadBatch)
+                .flatMapIterable(Map::values)
+                .onErrorResume(ServiceUnavailableException.class, e -> serveStale(dishIds, e));
+    }
+
+    private Mono<Map<Long, DishDto>> loadBatch(List<Long> dishIds) {
+        return dishServiceClient.getByIds(dishIds)
+                .doOnNext(dishes -> dishes.forEach(dishCache::put))
+                .flatMapIterable(dishes -> dishes)
+                .collectMap(DishDto::id)
+                .onErrorResume(e -> !(e instanceof ServiceUnavailableException), e -> Mono.just(Map.of()));
+    }
+
+    // While dish-service is down, a batch is answered from expired entries
+    // as long as every dish of it is still cached
+    private Flux<DishDto> serveStale(List<Long> dishIds, Throwable e) {
+        List<DishDto> stale = dishIds.stream()
+                .map(dishCache::getStale)
+                .flatMap(Optional::stream)
+                .toList();
+        return stale.size() == dishIds.size() ? Flux.fromIterable(stale) : Flux.error(e);
+    }
+}
@@ -1,13 +1,20 @@
 package org.itmo.secs.client;
 
+import org.itmo.secs.config.SmileCodecConfiguration;
 import org.itmo.secs.model.dto.DishDto;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Component;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import reactivefeign.spring.config.ReactiveFeignClient;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+import java.util.List;
+
 @Component
 @ReactiveFeignClient(
         name = "dish-service",
@@ -15,7 +22,12 @@ import reactor.core.publisher.Mono;
 )
 @ResponseBody
 public interface DishServiceClient {
-    @GetMapping("/dish")
+    @GetMapping(value = "/dish", produces = SmileCodecConfiguration.APPLICATION_SMILE_VALUE)
     Mono<DishDto> getById(@PathVariable("id") Long id);
+    // Fails with NotModifiedException when the dish still matches the ETag
+    @GetMapping(value = "/dish", produces = SmileCodecConfiguration.APPLICATION_SMILE_VALUE)
+    Mono<DishDto> revalidateById(@PathVariable("id") Long id, @RequestHeader(HttpHeaders.IF_NONE_MATCH) String eTag);
+    @GetMapping(value = "/dish/batch", produces = SmileCodecConfiguration.APPLICATION_SMILE_VALUE)
+    Mono<List<DishDto>> getByIds(@RequestParam("ids") Collection<Long> ids);
 }
 
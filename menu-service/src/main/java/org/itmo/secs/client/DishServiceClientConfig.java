@@ -2,6 +2,7 @@ package org.itmo.secs.client;
 
 import feign.codec.ErrorDecoder;
 import org.itmo.secs.utils.exceptions.ItemNotFoundException;
+import org.itmo.secs.utils.exceptions.NotModifiedException;
 import org.itmo.secs.utils.exceptions.ServiceUnavailableException;
 import org.springframework.context.annotation.Bean;
 import org.springframework.http.HttpStatus;
@@ -15,6 +16,7 @@ public class DishServiceClientConfig {
                 HttpStatus status = HttpStatus.valueOf(response.status());
 
             return switch (status) {
+                case NOT_MODIFIED -> new NotModifiedException("Dish was not modified");
                 case NOT_FOUND -> new ItemNotFoundException("Dish was not found");
                 case SERVICE_UNAVAILABLE -> new ServiceUnavailableException("Dish-service unavailable");
                 default -> defaultDecoder.decode(s, response);
@@ -0,0 +1,99 @@
+package org.itmo.secs.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+// Concurrent calls for the same key share one in-flight Mono instead of each
+// starting its own remote call. Results are not kept once the call finishes
+public class SingleFlight<K, V> {
+    private final ConcurrentHashMap<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter requests;
+    private final Counter coalesced;
+
+    public SingleFlight(MeterRegistry meterRegistry, String client, String method) {
+        Tags tags = Tags.of("client", client, "method", method);
+        this.requests = meterRegistry.counter("client.coalescing.requests", tags);
+        this.coalesced = meterRegistry.counter("client.coalescing.coalesced", tags);
+        meterRegistry.gauge("client.coalescing.ratio", tags, this,
+                singleFlight -> singleFlight.requests.count() == 0
+                        ? 0
+                        : singleFlight.coalesced.count() / singleFlight.requests.count()
+        );
+    }
+
+    public Mono<V> execute(K key, Function<K, Mono<V>> call) {
+        return Mono.defer(() -> {
+            requests.increment();
+            Mono<V> flight = Mono.defer(() -> call.apply(key)).cache();
+            Mono<V> existing = inFlight.putIfAbsent(key, flight);
+            if (existing != null) {
+                coalesced.increment();
+                return existing;
+            }
+            return flight.doFinally(signal -> inFlight.remove(key, flight));
+        });
+    }
+
+    // Batch form of execute: keys another caller is already fetching are joined,
+    // the rest go out in one call. Keys missing from the call's result are missing
+    // from the returned map too. The call runs to the end even if this caller
+    // cancels, because joined callers wait for its keys
+    public Mono<Map<K, V>> executeAll(Collection<K> keys, Function<List<K>, Mono<Map<K, V>>> call) {
+        return Mono.defer(() -> {
+            Map<K, Mono<V>> joined = new LinkedHashMap<>();
+            Map<K, Flight<V>> owned = new LinkedHashMap<>();
+            for (K key : new LinkedHashSet<>(keys)) {
+                requests.increment();
+                Sinks.One<V> sink = Sinks.one();
+                Flight<V> flight = new Flight<>(sink, sink.asMono());
+                Mono<V> existing = inFlight.putIfAbsent(key, flight.result());
+                if (existing != null) {
+                    coalesced.increment();
+                    joined.put(key, existing);
+                } else {
+                    owned.put(key, flight);
+                }
+            }
+
+            Mono<Map<K, V>> fetched = owned.isEmpty()
+                    ? Mono.just(Map.of())
+                    : Mono.fromFuture(call.apply(List.copyOf(owned.keySet()))
+                            .defaultIfEmpty(Map.of())
+                            .doOnNext(values -> owned.forEach((key, flight) -> {
+                                V value = values.get(key);
+                                if (value != null) {
+                                    flight.sink().tryEmitValue(value);
+                                } else {
+                                    flight.sink().tryEmitEmpty();
+                                }
+                            }))
+                            .doOnError(e -> owned.values().forEach(flight -> flight.sink().tryEmitError(e)))
+                            .doFinally(signal -> owned.forEach((key, flight) -> inFlight.remove(key, flight.result())))
+                            .toFuture(), true);
+
+            return Flux.merge(
+                            fetched.flatMapIterable(values -> owned.keySet().stream()
+                                    .filter(values::containsKey)
+                                    .map(key -> Map.entry(key, values.get(key)))
+                                    .toList()),
+                            Flux.fromIterable(joined.entrySet())
+                                    .flatMap(entry -> entry.getValue().map(value -> Map.entry(entry.getKey(), value)))
+                    )
+                    .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+        });
+    }
+
+    private record Flight<V>(Sinks.One<V> sink, Mono<V> result) { }
+}
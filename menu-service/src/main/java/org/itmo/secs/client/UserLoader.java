@@ -0,0 +1,93 @@
+package org.itmo.secs.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.itmo.secs.model.dto.UserDto;
+import org.itmo.secs.utils.exceptions.ItemNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+// user-accounter publishes no user events, so cached users and misses live
+// for app.user-cache.ttl and app.user-cache.negative-ttl respectively
+@Component
+public class UserLoader {
+    private final UserServiceClient userServiceClient;
+    private final SingleFlight<Long, UserDto> byId;
+    private final SingleFlight<String, UserDto> byName;
+    private final Cache<Long, Optional<UserDto>> usersById;
+    private final Cache<String, Optional<UserDto>> usersByName;
+
+    public UserLoader(
+        UserServiceClient userServiceClient,
+        MeterRegistry meterRegistry,
+        @Value("${app.user-cache.max-size:10000}") long maxSize,
+        @Value("${app.user-cache.ttl:30s}") Duration ttl,
+        @Value("${app.user-cache.negative-ttl:5s}") Duration negativeTtl
+    ) {
+        this.userServiceClient = userServiceClient;
+        this.byId = new SingleFlight<>(meterRegistry, "user-accounter", "getById");
+        this.byName = new SingleFlight<>(meterRegistry, "user-accounter", "getByName");
+        this.usersById = CaffeineCacheMetrics.monitor(meterRegistry, buildCache(maxSize, ttl, negativeTtl), "users-by-id");
+        this.usersByName = CaffeineCacheMetrics.monitor(meterRegistry, buildCache(maxSize, ttl, negativeTtl), "users-by-name");
+    }
+
+    public Mono<UserDto> getById(Long id) {
+        return load(usersById, id, key -> byId.execute(key, userServiceClient::getById));
+    }
+
+    public Mono<UserDto> getByName(String username) {
+        return load(usersByName, username, key -> byName.execute(key, userServiceClient::getByName));
+    }
+
+    public void invalidate(UserDto user) {
+        usersById.invalidate(user.id());
+        usersByName.invalidate(user.name());
+    }
+
+    private <K> Mono<UserDto> load(Cache<K, Optional<UserDto>> cache, K key, Function<K, Mono<UserDto>> call) {
+        return Mono.defer(() -> {
+            Optional<UserDto> cached = cache.getIfPresent(key);
+            if (cached != null) {
+                return cached.map(Mono::just)
+                        .orElseGet(() -> Mono.error(new ItemNotFoundException("User was not found")));
+            }
+            return call.apply(key)
+                    .doOnNext(user -> {
+                        usersById.put(user.id(), Optional.of(user));
+                        usersByName.put(user.name(), Optional.of(user));
+                    })
+                    .doOnError(ItemNotFoundException.class, e -> cache.put(key, Optional.empty()));
+        });
+    }
+
+    private static <K> Cache<K, Optional<UserDto>> buildCache(long maxSize, Duration ttl, Duration negativeTtl) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<K, Optional<UserDto>>() {
+                    @Override
+                    public long expireAfterCreate(K key, Optional<UserDto> user, long currentTime) {
+                        return user.isPresent() ? ttl.toNanos() : negativeTtl.toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(K key, Optional<UserDto> user, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, user, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(K key, Optional<UserDto> user, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+}
@@ -1,5 +1,6 @@
 package org.itmo.secs.client;
 
+import org.itmo.secs.config.SmileCodecConfiguration;
 import org.itmo.secs.model.dto.UserDto;
 import org.springframework.stereotype.Component;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -15,9 +16,9 @@ import reactor.core.publisher.Mono;
 )
 @ResponseBody
 public interface UserServiceClient {
-    @GetMapping("/user")
+    @GetMapping(value = "/user", produces = SmileCodecConfiguration.APPLICATION_SMILE_VALUE)
     Mono<UserDto> getByName(@PathVariable("name") String username);
-    @GetMapping("/user")
+    @GetMapping(value = "/user", produces = SmileCodecConfiguration.APPLICATION_SMILE_VALUE)
     Mono<UserDto> getById(@PathVariable("id") Long id);
 }
 
@@ -10,19 +10,24 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.itmo.secs.client.DishLoader;
 import org.itmo.secs.model.dto.*;
 import org.itmo.secs.model.entities.Menu;
-import org.itmo.secs.services.JsonConvService;
 import org.itmo.secs.services.MenuService;
 import org.itmo.secs.utils.conf.PagingConf;
-import org.itmo.secs.utils.converters.CCPF;
+import org.itmo.secs.utils.converters.NutritionAccumulator;
+import org.itmo.secs.utils.http.ETags;
+import org.itmo.secs.utils.paging.Cursor;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
 import java.util.Objects;
 
 @AllArgsConstructor
@@ -32,7 +37,6 @@ import java.util.Objects;
 public class MenuController {
     private MenuService menuService;
     private ConversionService conversionService;
-    private final JsonConvService jsonConvService;
     private final PagingConf pagingConf;
 
     @Operation(summary = "Создать новое меню", description = "Создается новое меню по отправленному DTO")
@@ -93,16 +97,18 @@ public class MenuController {
         return menuService.delete(menuId);
     }
 
-    @Operation(summary = "Найти меню", description = "При указании id ищет продукт по id, иначе возвращает список продуктов по указанной странице")
+    @Operation(summary = "Найти меню", description = "При указании id ищет продукт по id, иначе возвращает список продуктов по указанной странице или по курсору. С заголовком Accept: application/x-ndjson вместо страницы потоком отдаются все меню (после курсора, если он указан)")
     @ApiResponses(value = {
             @ApiResponse(
                 responseCode = "200", 
                 description = "Если было указано id, тело содержит соответствующее меню, иначе список из меню по указанной странице или юзернейму",
                 content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = MenuDto.class)),
-                    @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = MenuDto.class)))
+                    @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = MenuDto.class))),
+                    @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = MenuDto.class))
                 }
             ),
+            @ApiResponse(responseCode = "304", description = "Ответ не изменился с ETag из заголовка If-None-Match, тело не передается"),
             @ApiResponse(responseCode = "404", description = "Меню с указанным ID не было найдено",
                 content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDto.class))
@@ -110,7 +116,7 @@ public class MenuController {
             )
         })
     @GetMapping
-    public Mono<ResponseEntity<String>> find(
+    public Mono<ResponseEntity<?>> find(
         @Parameter(description = "ID продукта", example = "1")
         @RequestParam(required=false) Long id,
         @Parameter(description = "Имя пользователя", example = "Olya")
@@ -118,12 +124,20 @@ public class MenuController {
         @Parameter(description = "Номер страницы (нумерация с 0)", example = "0")
         @RequestParam(name="pnumber", required=false) Integer _pageNumber,
         @Parameter(description = "Размер страницы (по умолчанию 50)", example = "10")
-        @RequestParam(name="psize", required=false) Integer _pageSize
+        @RequestParam(name="psize", required=false) Integer _pageSize,
+        @Parameter(description = "Курсор следующей страницы из заголовка X-Next-Cursor, при указании pnumber игнорируется", example = "MTA")
+        @RequestParam(required=false) String cursor,
+        ServerHttpRequest request
     ) {
         if (id != null) {
-            return findById(id);
+            return Mono.from(findById(id));
         } else if (username != null) {
-            return findAllByUsername(username);
+            return Mono.from(findAllByUsername(username));
+        } else if (acceptsNdjson(request)) {
+            return Mono.just(ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(streamAll(cursor == null ? 0 : Cursor.decode(cursor)))
+            );
         } else {
             Integer pageNumber = (_pageNumber == null) ? 0 : _pageNumber;
             Integer pageSize = (_pageSize == null) 
@@ -131,28 +145,54 @@ public class MenuController {
                 : (_pageSize > pagingConf.getMaxPageSize())
                     ? pagingConf.getMaxPageSize()
                     : _pageSize;
-            return findAll(pageNumber, pageSize);
+            if (cursor != null && _pageNumber == null) {
+                return Mono.from(findAllAfter(Cursor.decode(cursor), pageSize));
+            }
+            return Mono.from(findAll(pageNumber, pageSize));
         }
     }
 
-    public Mono<ResponseEntity<String>> findAllByUsername(String username) {
-        return menuService.findAllByUsername(username)
-                .flatMap(this::reactiveConvertMenuToMenuDto)
-                .collectList()
-                .map(menusDto -> ResponseEntity.ok(jsonConvService.conv(menusDto)));
+    public Mono<ResponseEntity<List<MenuDto>>> findAllByUsername(String username) {
+        return convertMenusToMenuDtos(menuService.findAllByUsername(username))
+                .map(menusDto -> ResponseEntity.ok().eTag(ETags.weakList(menusDto, MenuController::partsOf)).body(menusDto));
+    }
+
+    // Dishes are resolved per chunk of menus, so only one chunk of menus and their dishes is held at a time
+    public Flux<MenuDto> streamAll(long lastId) {
+        return menuService.streamAll(lastId, pagingConf.getMaxPageSize())
+                .buffer(pagingConf.getMaxPageSize())
+                .concatMap(menus -> convertMenusToMenuDtos(Flux.fromIterable(menus)))
+                .concatMapIterable(menusDto -> menusDto);
+    }
+
+    private static boolean acceptsNdjson(ServerHttpRequest request) {
+        return request.getHeaders().getAccept().stream()
+                .anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype);
     }
 
-    public Mono<ResponseEntity<String>> findAll(Integer pageNumber, Integer pageSize) {
-        return menuService.findAll(pageNumber, pageSize)
-        .flatMap(this::reactiveConvertMenuToMenuDto)
-        .collectList()
-        .map(menusDto -> ResponseEntity.ok(jsonConvService.conv(menusDto)));
+    public Mono<ResponseEntity<List<MenuDto>>> findAll(Integer pageNumber, Integer pageSize) {
+        return toPageResponse(menuService.findAll(pageNumber, pageSize), pageSize);
     }
 
-    public Mono<ResponseEntity<String>> findById(Long id) {
+    public Mono<ResponseEntity<List<MenuDto>>> findAllAfter(long lastId, Integer pageSize) {
+        return toPageResponse(menuService.findAllAfter(lastId, pageSize), pageSize);
+    }
+
+    private Mono<ResponseEntity<List<MenuDto>>> toPageResponse(Flux<Menu> menus, Integer pageSize) {
+        return convertMenusToMenuDtos(menus)
+                .map(menusDto -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(ETags.weakList(menusDto, MenuController::partsOf));
+                    if (menusDto.size() == pageSize) {
+                        response.header(Cursor.NEXT_CURSOR_HEADER, Cursor.encode(menusDto.getLast().id()));
+                    }
+                    return response.body(menusDto);
+                });
+    }
+
+    public Mono<ResponseEntity<MenuDto>> findById(Long id) {
         return menuService.findById(id)
                 .flatMap(this::reactiveConvertMenuToMenuDto)
-                .map(dto -> ResponseEntity.ok(jsonConvService.conv(dto)))
+                .map(dto -> ResponseEntity.ok().eTag(ETags.weak(partsOf(dto))).body(dto))
                 .switchIfEmpty(Mono.just(ResponseEntity.notFound().build()));
     }
 
@@ -183,6 +223,7 @@ public class MenuController {
                     @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = DishDto.class)))
                 }
             ),
+            @ApiResponse(responseCode = "304", description = "Ответ не изменился с ETag из заголовка If-None-Match, тело не передается"),
             @ApiResponse(responseCode = "404", description = "Меню с указанным ID не было найдено",
                 content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorDto.class))
@@ -190,12 +231,14 @@ public class MenuController {
             )
         })
     @GetMapping("/dishes")
-    public Flux<DishDto> getDishes(
+    public Mono<ResponseEntity<List<DishDto>>> getDishes(
         @Parameter(description = "ID меню", example = "1", required = true)
         @RequestParam() Long id
     ) {
         return menuService.makeListOfDishes(id)
-                .map((it) -> Objects.requireNonNull(conversionService.convert(it, DishDto.class)));
+                .map((it) -> Objects.requireNonNull(conversionService.convert(it, DishDto.class)))
+                .collectList()
+                .map(dishes -> ResponseEntity.ok().eTag(ETags.weakList(dishes, DishLoader::partsOf)).body(dishes));
     }
 
     @Operation(summary = "Удалить блюдо из меню", description = "При наличии меню с указанным ip удаляет из него блюдо с указанным id")
@@ -216,34 +259,39 @@ public class MenuController {
         return menuService.deleteDishFromMenu(dto.dishId(), dto.menuId());
     }
 
+    public Mono<List<MenuDto>> convertMenusToMenuDtos(Flux<Menu> menus) {
+        return menus.collectList()
+                .flatMap(menuList -> menuService.makeListsOfDishes(menuList)
+                        .map(dishesByMenu -> menuList.stream()
+                                .map(menu -> convertMenuToMenuDto(menu, dishesByMenu.getOrDefault(menu.getId(), List.of())))
+                                .toList()
+                        )
+                );
+    }
+
     public Mono<MenuDto> reactiveConvertMenuToMenuDto(Menu menu) {
-        CCPF ccpf = new CCPF(0, 0, 0, 0);
         return menuService.makeListOfDishes(menu.getId())
-                .reduce(ccpf, (acc, curr) -> {
-                            acc.setCalories(
-                                    acc.getCalories() + curr.calories()
-                            );
-                            acc.setCarbs(
-                                    acc.getCarbs() + curr.carbs()
-                            );
-                            acc.setProtein(
-                                    acc.getProtein() + curr.protein()
-                            );
-                            acc.setFats(
-                                    acc.getFats() + curr.fats()
-                            );
-
-                            return acc;
-                        }
-                ).map(ccpf_ -> new MenuDto(
-                            menu.getId(),
-                            menu.getDate(),
-                            menu.getMeal().toString(),
-                            ccpf_.getCalories(),
-                            ccpf_.getCarbs(),
-                            ccpf_.getProtein(),
-                            ccpf_.getFats()
-                    )
-                );
+                .collectList()
+                .map(dishes -> convertMenuToMenuDto(menu, dishes));
+    }
+
+    public MenuDto convertMenuToMenuDto(Menu menu, List<DishDto> dishes) {
+        NutritionAccumulator total = new NutritionAccumulator();
+        for (DishDto dish : dishes) {
+            total.add(dish);
+        }
+        return new MenuDto(
+                menu.getId(),
+                menu.getDate(),
+                menu.getMeal().toString(),
+                total.calories(),
+                total.carbs(),
+                total.protein(),
+                total.fats()
+        );
+    }
+
+    private static Object[] partsOf(MenuDto dto) {
+        return new Object[] {dto.id(), dto.date(), dto.meal(), dto.calories(), dto.carbs(), dto.protein(), dto.fats()};
     }
 }
@@ -0,0 +1,7 @@
+package org.itmo.secs.model.dto;
+
+public record DishChangeDto(
+    Long seq,
+    Long dishId,
+    String type
+) { }
@@ -1,13 +1,25 @@
 package org.itmo.secs.repositories;
 
 import org.itmo.secs.model.entities.MenuDishes;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+
 @Repository
 public interface MenuDishesRepository extends R2dbcRepository<MenuDishes, Long> {
     Flux<MenuDishes> findAllByMenuId(long menuId);
-    Mono<MenuDishes> findByMenuIdAndDishId(long menuId, long dishId);
+    Flux<MenuDishes> findAllByMenuIdIn(Collection<Long> menuIds);
+
+    // Relies on unique_menu_dishes: returns 0 instead of failing when the dish is already in the menu
+    @Modifying
+    @Query("INSERT INTO menu_dishes (menu_id, dish_id) VALUES (:menuId, :dishId) ON CONFLICT (menu_id, dish_id) DO NOTHING")
+    Mono<Integer> insertIfAbsent(long menuId, long dishId);
+
+    @Query("DELETE FROM menu_dishes WHERE menu_id = :menuId AND dish_id = :dishId RETURNING id")
+    Mono<Long> deleteByMenuIdAndDishId(long menuId, long dishId);
 }
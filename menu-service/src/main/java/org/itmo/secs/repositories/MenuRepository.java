@@ -2,6 +2,8 @@ package org.itmo.secs.repositories;
 
 import org.itmo.secs.model.entities.Menu;
 import org.itmo.secs.model.entities.enums.Meal;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
@@ -14,4 +16,8 @@ import java.time.LocalDate;
 public interface MenuRepository extends R2dbcRepository<Menu, Long> {
     Mono<Menu> findByMealAndDateAndUserId(Meal meal, LocalDate date, Long userId);
     Flux<Menu> findAllByUserId(Long userId);
+    Flux<Menu> findAllBy(Pageable pageable);
+
+    @Query("SELECT * FROM menus WHERE id > :lastId ORDER BY id LIMIT :limit")
+    Flux<Menu> findAllAfter(long lastId, int limit);
 }
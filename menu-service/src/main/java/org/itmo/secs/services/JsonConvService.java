@@ -1,20 +0,0 @@
-package org.itmo.secs.services;
-
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.AllArgsConstructor;
-import org.springframework.stereotype.Service;
-
-@Service
-@AllArgsConstructor
-public class JsonConvService {
-    private final ObjectMapper mapper = new ObjectMapper();
-
-    public String conv(Object o) {
-        try {
-            return mapper.writeValueAsString(o);
-        } catch (JsonProcessingException e) {
-            return null;
-        }
-    }
-}
@@ -4,37 +4,50 @@ import lombok.AllArgsConstructor;
 import org.itmo.secs.model.entities.MenuDishes;
 import org.itmo.secs.repositories.MenuDishesRepository;
 import org.itmo.secs.utils.exceptions.DataIntegrityViolationException;
+import org.itmo.secs.utils.exceptions.ItemNotFoundException;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+import java.util.Map;
+
 @Service
 @AllArgsConstructor
 public class MenuDishesService {
+    private static final int MENU_IDS_BATCH_SIZE = 500;
+
     private MenuDishesRepository menuDishesRep;
 
-    public Mono<MenuDishes> saveByIds(Long menu_id, Long dish_id) {
-        return menuDishesRep.findByMenuIdAndDishId(menu_id, dish_id)
-                .doOnNext(x -> {
-                    throw new DataIntegrityViolationException(
-                            "Dish with id " + dish_id + " already in menu with id " + menu_id
-                    );
-                })
-                .switchIfEmpty(menuDishesRep.save(new MenuDishes(null, menu_id, dish_id)));
+    public Mono<Void> saveByIds(Long menu_id, Long dish_id) {
+        return menuDishesRep.insertIfAbsent(menu_id, dish_id)
+                .flatMap(inserted -> (inserted == 0)
+                        ? Mono.<Void>error(new DataIntegrityViolationException(
+                                "Dish with id " + dish_id + " already in menu with id " + menu_id
+                        ))
+                        : Mono.<Void>empty()
+                );
     }
 
     public Mono<Void> deleteByIds(Long menu_id, Long dish_id) {
-        return menuDishesRep.findByMenuIdAndDishId(menu_id, dish_id)
+        return menuDishesRep.deleteByMenuIdAndDishId(menu_id, dish_id)
                 .switchIfEmpty(Mono.error(
-                    new DataIntegrityViolationException(
-                            "Dish with id " + dish_id + " isn't in menu with id " + menu_id
+                    new ItemNotFoundException(
+                            "Dish with id " + dish_id + " is not in menu with id " + menu_id
                     ))
                 )
-                .flatMap(x -> menuDishesRep.deleteById(x.getId()));
+                .then();
     }
 
     public Flux<Long> getDishesIdByMenuId(Long menuId) {
         return menuDishesRep.findAllByMenuId(menuId)
                 .map(MenuDishes::getDishId);
     }
+
+    public Mono<Map<Long, Collection<Long>>> getDishesIdByMenuIds(Collection<Long> menuIds) {
+        return Flux.fromIterable(menuIds)
+                .buffer(MENU_IDS_BATCH_SIZE)
+                .concatMap(menuDishesRep::findAllByMenuIdIn)
+                .collectMultimap(MenuDishes::getMenuId, MenuDishes::getDishId);
+    }
 }
@@ -1,20 +1,27 @@
 package org.itmo.secs.services;
 
 import lombok.AllArgsConstructor;
-import org.itmo.secs.client.DishServiceClient;
-import org.itmo.secs.client.UserServiceClient;
+import org.itmo.secs.client.DishLoader;
+import org.itmo.secs.client.UserLoader;
 import org.itmo.secs.model.dto.DishDto;
 import org.itmo.secs.model.entities.Menu;
 import org.itmo.secs.model.entities.enums.Meal;
 import org.itmo.secs.repositories.MenuRepository;
 import org.itmo.secs.utils.exceptions.DataIntegrityViolationException;
 import org.itmo.secs.utils.exceptions.ItemNotFoundException;
-import org.itmo.secs.utils.exceptions.ServiceUnavailableException;
+import org.itmo.secs.utils.paging.Keyset;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 @Service
@@ -22,11 +29,11 @@ import java.util.Objects;
 public class MenuService {
     private MenuRepository menuRep;
     private MenuDishesService menuDishesService;
-    private DishServiceClient dishServiceClient;
-    private UserServiceClient userServiceClient;
+    private UserLoader userLoader;
+    private DishLoader dishLoader;
 
     public Mono<Menu> save(Menu menu) {
-        return userServiceClient
+        return userLoader
                 .getById(menu.getUserId())
                 .onErrorResume(Mono::error)
                 .hasElement()
@@ -82,22 +89,11 @@ public class MenuService {
     public Mono<Void> includeDishToMenu(Long dishId, Long menuId) {
         return menuRep.findById(menuId)
                 .switchIfEmpty(Mono.error(new ItemNotFoundException("Menu with id " + menuId + " was not found")))
-                .flatMap(menu -> menuDishesService.getDishesIdByMenuId(menuId)
-                        .any(dishId::equals)
-                        .flatMap(res -> {
-                            if (res) {
-                                return Mono.error(new DataIntegrityViolationException("Dish with id " + dishId + " already in menu with id " + menuId));
-                            } else {
-                                return Mono.just(menu);
-                            }
-                        })
-                )
-                .flatMap(menu -> dishServiceClient.getById(dishId)
+                .flatMap(menu -> dishLoader.load(dishId)
                         .onErrorMap(ItemNotFoundException.class,
                                 ex ->new ItemNotFoundException("Dish with id " + dishId + " was not found"))
                         .flatMap((dish) -> menuDishesService.saveByIds(menuId, dishId))
-                )
-                .then();
+                );
     }
 
     public Mono<Void> deleteDishFromMenu(Long dishId, Long menuId) {
@@ -105,40 +101,51 @@ public class MenuService {
                 .switchIfEmpty(Mono.error(
                         new ItemNotFoundException("Menu with id " + menuId + " was not found")
                 ))
-                .flatMap(menu ->
-                        menuDishesService.getDishesIdByMenuId(menuId)
-                                .any(dishId::equals)
-                                .flatMap(exists -> {
-                                    if (!exists) {
-                                        return Mono.error(new ItemNotFoundException(
-                                                "Dish with id " + dishId + " is not in menu with id " + menuId));
-                                    }
-                                    return menuDishesService.deleteByIds(menuId, dishId);
-                                })
-                )
-                .then();
+                .flatMap(menu -> menuDishesService.deleteByIds(menuId, dishId));
     }
 
     public Flux<DishDto> makeListOfDishes(Long menuId) {
         return menuRep.findById(menuId)
                 .switchIfEmpty(Mono.error(new ItemNotFoundException("Menu with id " + menuId + " was not found")))
-                .flatMapMany(x -> menuDishesService.getDishesIdByMenuId(x.getId()))
-                .flatMap(dishId -> dishServiceClient.getById(dishId)
-                        .onErrorResume(e -> {
-                            if (e instanceof ServiceUnavailableException) {
-                                return Mono.error(e);
-                            } else {
-                                return Mono.just(new DishDto(dishId, "(not found)", 0, 0, 0, 0));
-                            }
-                        }));
+                .flatMap(x -> menuDishesService.getDishesIdByMenuId(x.getId()).collectList())
+                .flatMapMany(dishIds -> dishLoader.loadAll(dishIds)
+                        .flatMapIterable(dishes -> dishIds.stream().map(dishes::get).toList())
+                );
+    }
+
+    // Dishes of all given menus: one menu_dishes query and one batched dish lookup
+    // for the distinct dish ids, instead of a round trip per menu and dish
+    public Mono<Map<Long, List<DishDto>>> makeListsOfDishes(List<Menu> menus) {
+        List<Long> menuIds = menus.stream().map(Menu::getId).toList();
+        return menuDishesService.getDishesIdByMenuIds(menuIds)
+                .flatMap(dishIdsByMenu -> dishLoader.loadAll(
+                        dishIdsByMenu.values().stream().flatMap(Collection::stream).toList()
+                        )
+                        .map(dishes -> {
+                            Map<Long, List<DishDto>> dishesByMenu = new HashMap<>();
+                            dishIdsByMenu.forEach((menuId, dishIds) ->
+                                    dishesByMenu.put(menuId, dishIds.stream().map(dishes::get).toList())
+                            );
+                            return dishesByMenu;
+                        })
+                );
     }
 
     public Flux<Menu> findAll(int page, int size) {
-        return menuRep.findAll().skip((long) page * size).limitRate(size);
+        Pageable pageable = PageRequest.of(page, size, Sort.by("id"));
+        return menuRep.findAllBy(pageable);
+    }
+
+    public Flux<Menu> findAllAfter(long lastId, int size) {
+        return menuRep.findAllAfter(lastId, size);
+    }
+
+    public Flux<Menu> streamAll(long lastId, int chunkSize) {
+        return Keyset.walk(lastId, chunkSize, this::findAllAfter, Menu::getId);
     }
 
     public Flux<Menu> findAllByUsername(String username) {
-        return userServiceClient.getByName(username)
+        return userLoader.getByName(username)
                 .onErrorResume(Mono::error)
                 .flatMapMany(user -> menuRep.findAllByUserId(user.id()));
     }
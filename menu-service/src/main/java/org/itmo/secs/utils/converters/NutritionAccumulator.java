@@ -0,0 +1,36 @@
+package org.itmo.secs.utils.converters;
+
+import org.itmo.secs.model.dto.DishDto;
+
+// Sums the nutrition of a menu's dishes in primitive longs, so adding a dish
+// allocates nothing; dish totals are already rounded by dish-service
+public final class NutritionAccumulator {
+    private long calories;
+    private long carbs;
+    private long protein;
+    private long fats;
+
+    public NutritionAccumulator add(DishDto dish) {
+        calories += dish.calories();
+        carbs += dish.carbs();
+        protein += dish.protein();
+        fats += dish.fats();
+        return this;
+    }
+
+    public int calories() {
+        return Math.toIntExact(calories);
+    }
+
+    public int carbs() {
+        return Math.toIntExact(carbs);
+    }
+
+    public int protein() {
+        return Math.toIntExact(protein);
+    }
+
+    public int fats() {
+        return Math.toIntExact(fats);
+    }
+}
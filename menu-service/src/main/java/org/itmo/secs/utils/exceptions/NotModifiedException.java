@@ -0,0 +1,7 @@
+package org.itmo.secs.utils.exceptions;
+
+public class NotModifiedException extends RuntimeException {
+    public NotModifiedException(String message) {
+        super(message);
+    }
+}
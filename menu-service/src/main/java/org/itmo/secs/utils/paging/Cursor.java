@@ -0,0 +1,27 @@
+package org.itmo.secs.utils.paging;
+
+import org.itmo.secs.utils.exceptions.DataIntegrityViolationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Kept identical in dish-service and menu-service, which are built separately
+public final class Cursor {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private Cursor() { }
+
+    public static String encode(long lastId) {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(Long.toString(lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static long decode(String cursor) {
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException ex) {
+            throw new DataIntegrityViolationException("Invalid cursor " + cursor);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.itmo.secs.utils.paging;
+
+import reactor.core.publisher.Flux;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+// Kept identical in dish-service and menu-service, which are built separately
+public final class Keyset {
+    private Keyset() { }
+
+    // Walks a table in id order one chunk at a time. The next chunk is queried only
+    // after downstream has consumed the previous one, so at most one chunk is in memory
+    public static <T> Flux<T> walk(long afterId, int chunkSize, BiFunction<Long, Integer, Flux<T>> findAllAfter, Function<T, Long> idOf) {
+        return Flux.defer(() -> {
+            AtomicLong lastId = new AtomicLong(afterId);
+            AtomicInteger chunkCount = new AtomicInteger();
+            return Flux.defer(() -> {
+                        chunkCount.set(0);
+                        return findAllAfter.apply(lastId.get(), chunkSize);
+                    })
+                    .doOnNext(it -> {
+                        lastId.set(idOf.apply(it));
+                        chunkCount.incrementAndGet();
+                    })
+                    .repeat(() -> chunkCount.get() == chunkSize);
+        });
+    }
+}
@@ -7,12 +7,14 @@ import org.itmo.secs.client.UserServiceClient;
 import org.itmo.secs.model.dto.*;
 import org.itmo.secs.model.entities.enums.Meal;
 import org.itmo.secs.repositories.MenuRepository;
+import org.itmo.secs.utils.paging.Cursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.DynamicPropertyRegistry;
@@ -29,6 +31,7 @@ import java.time.LocalDate;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
@@ -69,6 +72,7 @@ class MenuControllerTest {
         registry.add("eureka.client.enabled", () -> false);
         registry.add("spring.cloud.config.enabled", () -> false);
         registry.add("spring.cloud.loadbalancer.enabled", () -> false);
+        registry.add("app.dish-changes.enabled", () -> false);
         registry.add("app.max-page-size", () -> "10");
         registry.add("app.default-page-size", () -> "5");
     }
@@ -87,6 +91,7 @@ class MenuControllerTest {
         when(userServiceClient.getByName(anyString())).thenReturn(Mono.just(testUser));
         DishDto testDish = new DishDto(100L, "Test Dish", 100, 20, 10, 5);
         when(dishServiceClient.getById(anyLong())).thenReturn(Mono.just(testDish));
+        when(dishServiceClient.getByIds(anyCollection())).thenReturn(Mono.just(List.of(testDish)));
         createDto = new MenuCreateDto(
                 "BREAKFAST",
                 1L,
@@ -240,6 +245,56 @@ class MenuControllerTest {
 //        assertThat(menus).hasSize(2);
 //    }
 
+    @Test
+    void findAllMenusWithCursor_success() throws Exception {
+        MenuDto breakfast = createMenu(new MenuCreateDto("BREAKFAST", 1L, LocalDate.of(2024, 1, 15)));
+        MenuDto lunch = createMenu(new MenuCreateDto("LUNCH", 1L, LocalDate.of(2024, 1, 15)));
+        MenuDto dinner = createMenu(new MenuCreateDto("DINNER", 1L, LocalDate.of(2024, 1, 15)));
+
+        String cursor = webTestClient.get()
+                .uri("/menu?psize=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists("X-Next-Cursor")
+                .returnResult(String.class)
+                .getResponseHeaders()
+                .getFirst("X-Next-Cursor");
+
+        String json = webTestClient.get()
+                .uri("/menu?psize=2&cursor=" + cursor)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist("X-Next-Cursor")
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        List<MenuDto> menus = parseMenuList(json);
+
+        assertThat(menus).extracting(MenuDto::id).containsExactly(dinner.id());
+        assertThat(getMenusWithPaging(0, 2)).extracting(MenuDto::id).containsExactly(breakfast.id(), lunch.id());
+    }
+
+    @Test
+    void streamAllMenusAsNdjson_success() {
+        MenuDto breakfast = createMenu(new MenuCreateDto("BREAKFAST", 1L, LocalDate.of(2024, 1, 15)));
+        MenuDto lunch = createMenu(new MenuCreateDto("LUNCH", 1L, LocalDate.of(2024, 1, 15)));
+        MenuDto dinner = createMenu(new MenuCreateDto("DINNER", 1L, LocalDate.of(2024, 1, 15)));
+
+        List<MenuDto> menus = webTestClient.get()
+                .uri("/menu?cursor=" + Cursor.encode(breakfast.id()))
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(MenuDto.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertThat(menus).extracting(MenuDto::id).containsExactly(lunch.id(), dinner.id());
+    }
+
     @Test
     void updateMenu_success() throws Exception {
         MenuDto created = createMenu(createDto);
@@ -304,4 +359,23 @@ class MenuControllerTest {
                     assert error.message().contains("Dish with id 99999 was not found");
                 });
     }
+
+    @Test
+    void addDish_twice_shouldReturn400_andDeleteTwice_shouldReturn404() {
+        MenuDto menu = createMenu(createDto);
+        MenuDishDto request = new MenuDishDto(menu.id(), 100L);
+
+        webTestClient.put().uri("/menu/dishes").contentType(MediaType.APPLICATION_JSON).bodyValue(request)
+                .exchange().expectStatus().isNoContent();
+        webTestClient.put().uri("/menu/dishes").contentType(MediaType.APPLICATION_JSON).bodyValue(request)
+                .exchange().expectStatus().isBadRequest()
+                .expectBody(ErrorDto.class)
+                .consumeWith(response -> assertThat(response.getResponseBody().message())
+                        .isEqualTo("Dish with id 100 already in menu with id " + menu.id()));
+
+        webTestClient.method(HttpMethod.DELETE).uri("/menu/dishes").contentType(MediaType.APPLICATION_JSON).bodyValue(request)
+                .exchange().expectStatus().isNoContent();
+        webTestClient.method(HttpMethod.DELETE).uri("/menu/dishes").contentType(MediaType.APPLICATION_JSON).bodyValue(request)
+                .exchange().expectStatus().isNotFound();
+    }
 }
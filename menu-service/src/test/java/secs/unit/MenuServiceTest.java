@@ -1,6 +1,10 @@
 package secs.unit;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.itmo.secs.client.DishCache;
+import org.itmo.secs.client.DishLoader;
 import org.itmo.secs.client.DishServiceClient;
+import org.itmo.secs.client.UserLoader;
 import org.itmo.secs.client.UserServiceClient;
 import org.itmo.secs.model.dto.DishDto;
 import org.itmo.secs.model.dto.UserDto;
@@ -11,16 +15,25 @@ import org.itmo.secs.services.MenuDishesService;
 import org.itmo.secs.services.MenuService;
 import org.itmo.secs.utils.exceptions.DataIntegrityViolationException;
 import org.itmo.secs.utils.exceptions.ItemNotFoundException;
+import org.itmo.secs.utils.exceptions.NotModifiedException;
 import org.itmo.secs.utils.exceptions.ServiceUnavailableException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -30,11 +43,16 @@ class MenuServiceTest {
     private final DishServiceClient dishServiceClient = Mockito.mock(DishServiceClient.class);
     private final UserServiceClient userServiceClient = Mockito.mock(UserServiceClient.class);
 
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DishCache dishCache = new DishCache(meterRegistry, 100, Duration.ofMinutes(1), Duration.ofMinutes(30));
+    private final DishLoader dishLoader = new DishLoader(dishServiceClient, dishCache, meterRegistry, 2);
+    private final UserLoader userLoader = new UserLoader(userServiceClient, meterRegistry, 100, Duration.ofSeconds(30), Duration.ofSeconds(5));
+
     private final MenuService menuService = new MenuService(
             menuRepository,
             menuDishesService,
-            dishServiceClient,
-            userServiceClient
+            userLoader,
+            dishLoader
     );
 
     private Menu testMenu;
@@ -111,6 +129,47 @@ class MenuServiceTest {
         verify(menuRepository, never()).save(any(Menu.class));
     }
 
+    @Test
+    void save_ShouldCacheUserLookups() {
+        when(userServiceClient.getById(1L))
+                .thenReturn(Mono.just(testUserDto));
+        when(menuRepository.findByMealAndDateAndUserId(
+                eq(Meal.BREAKFAST), eq(testDate), eq(1L)
+        )).thenReturn(Mono.empty());
+        when(menuRepository.save(any(Menu.class)))
+                .thenReturn(Mono.just(testMenu));
+        when(menuRepository.findAllByUserId(1L))
+                .thenReturn(Flux.just(testMenu));
+
+        StepVerifier.create(menuService.save(testMenu))
+                .expectNextCount(1)
+                .verifyComplete();
+        StepVerifier.create(menuService.save(testMenu))
+                .expectNextCount(1)
+                .verifyComplete();
+        StepVerifier.create(menuService.findAllByUsername("TestUser"))
+                .expectNext(testMenu)
+                .verifyComplete();
+
+        verify(userServiceClient, times(1)).getById(1L);
+        verify(userServiceClient, never()).getByName(anyString());
+    }
+
+    @Test
+    void save_ShouldCacheUnknownUser() {
+        when(userServiceClient.getById(1L))
+                .thenReturn(Mono.error(new ItemNotFoundException("User was not found")));
+
+        StepVerifier.create(menuService.save(testMenu))
+                .expectError(ItemNotFoundException.class)
+                .verify();
+        StepVerifier.create(menuService.save(testMenu))
+                .expectError(ItemNotFoundException.class)
+                .verify();
+
+        verify(userServiceClient, times(1)).getById(1L);
+    }
+
     @Test
     void update_ShouldUpdateMenu_WhenMenuExistsAndNoKeyConflict() {
         Menu updatedMenu = new Menu();
@@ -231,8 +290,6 @@ class MenuServiceTest {
     void includeDishToMenu_ShouldAddDish_WhenBothExistAndDishNotInMenu() {
         when(menuRepository.findById(1L))
                 .thenReturn(Mono.just(testMenu));
-        when(menuDishesService.getDishesIdByMenuId(1L))
-                .thenReturn(Flux.empty());
         when(dishServiceClient.getById(100L))
                 .thenReturn(Mono.just(testDishDto));
         when(menuDishesService.saveByIds(1L, 100L))
@@ -244,6 +301,27 @@ class MenuServiceTest {
         verify(menuDishesService).saveByIds(1L, 100L);
     }
 
+    @Test
+    void includeDishToMenu_ShouldRevalidateExpiredDish() {
+        DishCache expiringCache = new DishCache(new SimpleMeterRegistry(), 100, Duration.ZERO, Duration.ofMinutes(30));
+        MenuService menuService = new MenuService(
+                menuRepository, menuDishesService, userLoader, new DishLoader(dishServiceClient, expiringCache, meterRegistry, 2)
+        );
+        expiringCache.put(testDishDto);
+        when(menuRepository.findById(1L))
+                .thenReturn(Mono.just(testMenu));
+        when(dishServiceClient.revalidateById(100L, DishLoader.eTagOf(testDishDto)))
+                .thenReturn(Mono.error(new NotModifiedException("Dish was not modified")));
+        when(menuDishesService.saveByIds(1L, 100L))
+                .thenReturn(Mono.empty());
+
+        StepVerifier.create(menuService.includeDishToMenu(100L, 1L))
+                .verifyComplete();
+
+        verify(dishServiceClient, never()).getById(anyLong());
+        assertEquals(1.0, meterRegistry.counter("dish.cache.revalidations", "result", "not_modified").count());
+    }
+
     @Test
     void includeDishToMenu_ShouldThrowItemNotFoundException_WhenMenuNotFound() {
         when(menuRepository.findById(999L))
@@ -261,8 +339,10 @@ class MenuServiceTest {
     void includeDishToMenu_ShouldThrowDataIntegrityViolationException_WhenDishAlreadyInMenu() {
         when(menuRepository.findById(1L))
                 .thenReturn(Mono.just(testMenu));
-        when(menuDishesService.getDishesIdByMenuId(1L))
-                .thenReturn(Flux.just(100L));
+        when(dishServiceClient.getById(100L))
+                .thenReturn(Mono.just(testDishDto));
+        when(menuDishesService.saveByIds(1L, 100L))
+                .thenReturn(Mono.error(new DataIntegrityViolationException("Dish with id 100 already in menu with id 1")));
 
         StepVerifier.create(menuService.includeDishToMenu(100L, 1L))
                 .expectErrorMatches(throwable ->
@@ -271,16 +351,13 @@ class MenuServiceTest {
                 )
                 .verify();
 
-        verify(dishServiceClient, never()).getById(anyLong());
-        verify(menuDishesService, never()).saveByIds(anyLong(), anyLong());
+        verify(menuDishesService, never()).getDishesIdByMenuId(anyLong());
     }
 
     @Test
     void deleteDishFromMenu_ShouldRemoveDish_WhenBothExistAndDishInMenu() {
         when(menuRepository.findById(1L))
                 .thenReturn(Mono.just(testMenu));
-        when(menuDishesService.getDishesIdByMenuId(1L))
-                .thenReturn(Flux.just(100L));
         when(menuDishesService.deleteByIds(1L, 100L))
                 .thenReturn(Mono.empty());
 
@@ -294,10 +371,8 @@ class MenuServiceTest {
     void deleteDishFromMenu_ShouldThrowItemNotFoundException_WhenDishNotInMenu() {
         when(menuRepository.findById(1L))
                 .thenReturn(Mono.just(testMenu));
-        when(menuDishesService.getDishesIdByMenuId(1L))
-                .thenReturn(Flux.empty());
-        when(menuDishesService.deleteByIds(anyLong(), anyLong()))
-                .thenReturn(Mono.empty());
+        when(menuDishesService.deleteByIds(1L, 100L))
+                .thenReturn(Mono.error(new ItemNotFoundException("Dish with id 100 is not in menu with id 1")));
 
         StepVerifier.create(menuService.deleteDishFromMenu(100L, 1L))
                 .expectErrorMatches(throwable ->
@@ -305,8 +380,6 @@ class MenuServiceTest {
                                 throwable.getMessage().equals("Dish with id 100 is not in menu with id 1")
                 )
                 .verify();
-
-        verify(menuDishesService, never()).deleteByIds(anyLong(), anyLong());
     }
 
     @Test
@@ -315,21 +388,44 @@ class MenuServiceTest {
                 .thenReturn(Mono.just(testMenu));
         when(menuDishesService.getDishesIdByMenuId(1L))
                 .thenReturn(Flux.just(100L));
-        when(dishServiceClient.getById(100L))
-                .thenReturn(Mono.just(testDishDto));
+        when(dishServiceClient.getByIds(List.of(100L)))
+                .thenReturn(Mono.just(List.of(testDishDto)));
 
         StepVerifier.create(menuService.makeListOfDishes(1L))
                 .expectNext(testDishDto)
                 .verifyComplete();
     }
 
+    @Test
+    void makeListOfDishes_ShouldFetchDishesInBatches() {
+        DishDto dish1 = new DishDto(1L, "Dish 1", 1, 1, 1, 1);
+        DishDto dish2 = new DishDto(2L, "Dish 2", 2, 2, 2, 2);
+        DishDto dish3 = new DishDto(3L, "Dish 3", 3, 3, 3, 3);
+        when(menuRepository.findById(1L))
+                .thenReturn(Mono.just(testMenu));
+        when(menuDishesService.getDishesIdByMenuId(1L))
+                .thenReturn(Flux.just(3L, 1L, 2L));
+        when(dishServiceClient.getByIds(List.of(3L, 1L)))
+                .thenReturn(Mono.just(List.of(dish1, dish3)));
+        when(dishServiceClient.getByIds(List.of(2L)))
+                .thenReturn(Mono.just(List.of()));
+
+        StepVerifier.create(menuService.makeListOfDishes(1L))
+                .expectNext(dish3, dish1)
+                .expectNextMatches(dish -> dish.id().equals(2L) && dish.name().equals("(not found)"))
+                .verifyComplete();
+
+        verify(dishServiceClient, times(2)).getByIds(anyCollection());
+        verify(dishServiceClient, never()).getById(anyLong());
+    }
+
     @Test
     void makeListOfDishes_ShouldReturnNotFoundDish_WhenDishServiceFails() {
         when(menuRepository.findById(1L))
                 .thenReturn(Mono.just(testMenu));
         when(menuDishesService.getDishesIdByMenuId(1L))
                 .thenReturn(Flux.just(999L));
-        when(dishServiceClient.getById(999L))
+        when(dishServiceClient.getByIds(List.of(999L)))
                 .thenReturn(Mono.error(new ItemNotFoundException("Dish not found")));
 
         StepVerifier.create(menuService.makeListOfDishes(1L))
@@ -340,6 +436,92 @@ class MenuServiceTest {
                 .verifyComplete();
     }
 
+    @Test
+    void makeListOfDishes_ShouldServeCachedDishes() {
+        when(menuRepository.findById(1L))
+                .thenReturn(Mono.just(testMenu));
+        when(menuDishesService.getDishesIdByMenuId(1L))
+                .thenReturn(Flux.just(100L), Flux.just(100L));
+        when(dishServiceClient.getByIds(List.of(100L)))
+                .thenReturn(Mono.just(List.of(testDishDto)));
+
+        StepVerifier.create(menuService.makeListOfDishes(1L))
+                .expectNext(testDishDto)
+                .verifyComplete();
+        StepVerifier.create(menuService.makeListOfDishes(1L))
+                .expectNext(testDishDto)
+                .verifyComplete();
+
+        verify(dishServiceClient, times(1)).getByIds(anyCollection());
+    }
+
+    @Test
+    void makeListOfDishes_ShouldServeStaleDishes_WhenDishServiceUnavailable() {
+        DishCache expiringCache = new DishCache(new SimpleMeterRegistry(), 100, Duration.ZERO, Duration.ofMinutes(30));
+        MenuService menuService = new MenuService(
+                menuRepository, menuDishesService, userLoader, new DishLoader(dishServiceClient, expiringCache, meterRegistry, 2)
+        );
+        expiringCache.put(testDishDto);
+        when(menuRepository.findById(1L))
+                .thenReturn(Mono.just(testMenu));
+        when(menuDishesService.getDishesIdByMenuId(1L))
+                .thenReturn(Flux.just(100L));
+        when(dishServiceClient.getByIds(List.of(100L)))
+                .thenReturn(Mono.error(new ServiceUnavailableException("Dish-service unavailable")));
+
+        StepVerifier.create(menuService.makeListOfDishes(1L))
+                .expectNext(testDishDto)
+                .verifyComplete();
+    }
+
+    @Test
+    void makeListsOfDishes_ShouldResolveSharedDishesOnce() {
+        Menu otherMenu = new Menu();
+        otherMenu.setId(2L);
+        DishDto otherDish = new DishDto(200L, "Other Dish", 1, 2, 3, 4);
+        when(menuDishesService.getDishesIdByMenuIds(List.of(1L, 2L)))
+                .thenReturn(Mono.just(Map.of(1L, List.of(100L), 2L, List.of(100L, 200L))));
+        when(dishServiceClient.getByIds(anyCollection()))
+                .thenReturn(Mono.just(List.of(testDishDto, otherDish)));
+
+        StepVerifier.create(menuService.makeListsOfDishes(List.of(testMenu, otherMenu)))
+                .expectNextMatches(dishesByMenu ->
+                        dishesByMenu.get(1L).equals(List.of(testDishDto)) &&
+                                dishesByMenu.get(2L).equals(List.of(testDishDto, otherDish))
+                )
+                .verifyComplete();
+
+        verify(dishServiceClient, times(1)).getByIds(anyCollection());
+    }
+
+    @Test
+    void loadAll_ShouldJoinIdsAlreadyInFlight() {
+        DishDto dish1 = new DishDto(1L, "Dish 1", 1, 1, 1, 1);
+        DishDto dish2 = new DishDto(2L, "Dish 2", 2, 2, 2, 2);
+        DishDto dish3 = new DishDto(3L, "Dish 3", 3, 3, 3, 3);
+        Sinks.One<List<DishDto>> response = Sinks.one();
+        when(dishServiceClient.getByIds(List.of(1L, 2L)))
+                .thenReturn(response.asMono());
+        when(dishServiceClient.getByIds(List.of(3L)))
+                .thenReturn(Mono.just(List.of(dish3)));
+
+        StepVerifier.create(Flux.merge(
+                        dishLoader.loadAll(List.of(1L, 2L)),
+                        dishLoader.loadAll(List.of(2L, 3L))
+                ).collectList())
+                .then(() -> response.tryEmitValue(List.of(dish1, dish2)))
+                .expectNextMatches(results ->
+                        results.contains(Map.of(1L, dish1, 2L, dish2)) &&
+                                results.contains(Map.of(2L, dish2, 3L, dish3))
+                )
+                .verifyComplete();
+
+        verify(dishServiceClient, times(1)).getByIds(List.of(1L, 2L));
+        verify(dishServiceClient, times(1)).getByIds(List.of(3L));
+        verify(dishServiceClient, times(2)).getByIds(anyCollection());
+        assertEquals(1.0, meterRegistry.get("client.coalescing.coalesced").tag("method", "getByIds").counter().count());
+    }
+
     @Test
     void findAll_ShouldReturnPaginatedMenus() {
         Menu menu1 = new Menu();
@@ -347,12 +529,27 @@ class MenuServiceTest {
         Menu menu2 = new Menu();
         menu2.setId(2L);
 
-        when(menuRepository.findAll())
+        when(menuRepository.findAllBy(PageRequest.of(0, 10, Sort.by("id"))))
                 .thenReturn(Flux.just(menu1, menu2));
 
         StepVerifier.create(menuService.findAll(0, 10))
                 .expectNext(menu1, menu2)
                 .verifyComplete();
+
+        verify(menuRepository, never()).findAll();
+    }
+
+    @Test
+    void findAllAfter_ShouldReturnMenusAfterCursor() {
+        Menu menu2 = new Menu();
+        menu2.setId(2L);
+
+        when(menuRepository.findAllAfter(1L, 10))
+                .thenReturn(Flux.just(menu2));
+
+        StepVerifier.create(menuService.findAllAfter(1L, 10))
+                .expectNext(menu2)
+                .verifyComplete();
     }
 
     @Test
@@ -367,6 +564,26 @@ class MenuServiceTest {
                 .verifyComplete();
     }
 
+    @Test
+    void findAllByUsername_ShouldShareInFlightUserLookup() {
+        Sinks.One<UserDto> response = Sinks.one();
+        when(userServiceClient.getByName("TestUser"))
+                .thenReturn(response.asMono());
+        when(menuRepository.findAllByUserId(1L))
+                .thenReturn(Flux.just(testMenu));
+
+        StepVerifier.create(Flux.merge(
+                        menuService.findAllByUsername("TestUser"),
+                        menuService.findAllByUsername("TestUser")
+                ))
+                .then(() -> response.tryEmitValue(testUserDto))
+                .expectNext(testMenu, testMenu)
+                .verifyComplete();
+
+        verify(userServiceClient, times(1)).getByName("TestUser");
+        assertEquals(1.0, meterRegistry.get("client.coalescing.coalesced").tag("method", "getByName").counter().count());
+    }
+
     @Test
     void findAllByUsername_ShouldPropagateError_WhenUserNotFound() {
         when(userServiceClient.getByName("NonExistent"))
@@ -379,7 +596,7 @@ class MenuServiceTest {
 
     @Test
     void makeListOfDishes_shouldHandleServiceUnavailableException() {
-        MenuService menuService = new MenuService(menuRepository, menuDishesService, dishServiceClient, null);
+        MenuService menuService = new MenuService(menuRepository, menuDishesService, null, dishLoader);
         Long menuId = 1L;
         Menu menu = new Menu();
         menu.setId(menuId);
@@ -388,10 +605,10 @@ class MenuServiceTest {
         when(menuDishesService.getDishesIdByMenuId(menuId))
                 .thenReturn(Flux.just(10L));
 
-        when(dishServiceClient.getById(anyLong()))
+        when(dishServiceClient.getByIds(anyCollection()))
                 .thenAnswer(invocation -> {
-                    Long dishId = invocation.getArgument(0);
-                    return Mono.error(new ServiceUnavailableException("Service unavailable for dish " + dishId));
+                    Collection<Long> dishIds = invocation.getArgument(0);
+                    return Mono.error(new ServiceUnavailableException("Service unavailable for dishes " + dishIds));
                 });
 
         StepVerifier.create(menuService.makeListOfDishes(menuId))
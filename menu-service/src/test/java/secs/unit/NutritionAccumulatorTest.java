@@ -0,0 +1,22 @@
+package secs.unit;
+
+import org.itmo.secs.model.dto.DishDto;
+import org.itmo.secs.utils.converters.NutritionAccumulator;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class NutritionAccumulatorTest {
+
+    @Test
+    void add_ShouldSumWholeDishes() {
+        NutritionAccumulator total = new NutritionAccumulator()
+                .add(new DishDto(1L, "Борщ", 21, 18, 54, 482))
+                .add(new DishDto(2L, "Каша", 53, 7, 1, 220));
+
+        assertEquals(702, total.calories());
+        assertEquals(74, total.carbs());
+        assertEquals(25, total.protein());
+        assertEquals(55, total.fats());
+    }
+}
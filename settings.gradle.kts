@@ -4,4 +4,6 @@ include("dish-service")
 include("eureka-server")
 include("config-server")
 include("gateway")
-include("menu-service")
\ No newline at end of file
+include("menu-service")
+include("benchmarks:dish")
+include("benchmarks:menu")
\ No newline at end of file
@@ -2,6 +2,7 @@ package org.itmo.user.accounter.repositories;
 
 import org.itmo.user.accounter.model.entities.User;
 
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Mono;
@@ -9,4 +10,8 @@ import reactor.core.publisher.Mono;
 @Repository
 public interface UserRepository extends ReactiveCrudRepository<User, Long> {
     Mono<User> findByName(String name);
+
+    // Empty when a user with the same name already exists
+    @Query("INSERT INTO users (name) VALUES (:name) ON CONFLICT (name) DO NOTHING RETURNING *")
+    Mono<User> insertIfAbsent(String name);
 }
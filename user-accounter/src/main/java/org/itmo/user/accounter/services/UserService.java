@@ -15,13 +15,9 @@ import reactor.core.publisher.Mono;
 public class UserService {
     private UserRepository userRep;
 
-    @Transactional
     public Mono<User> save(User user) {
-        return userRep.findByName(user.getName())
-                .doOnNext(x -> {
-                    throw new DataIntegrityViolationException("User with name " + user.getName() + " already exists" );
-                })
-                .switchIfEmpty(userRep.save(user));
+        return userRep.insertIfAbsent(user.getName())
+                .switchIfEmpty(Mono.error(() -> new DataIntegrityViolationException("User with name " + user.getName() + " already exists")));
     }
 
     @Transactional
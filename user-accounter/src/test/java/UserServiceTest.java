@@ -28,8 +28,7 @@ class UserServiceTest {
 
     @Test
     void save_ShouldSaveUser_WhenUserDoesNotExist() {
-        when(userRepository.findByName(testUser.getName())).thenReturn(Mono.empty());
-        when(userRepository.save(testUser)).thenReturn(Mono.just(testUser));
+        when(userRepository.insertIfAbsent(testUser.getName())).thenReturn(Mono.just(testUser));
 
         StepVerifier.create(userService.save(testUser))
                 .expectNextMatches(user ->
@@ -38,22 +37,20 @@ class UserServiceTest {
                 )
                 .verifyComplete();
 
-        verify(userRepository).findByName(testUser.getName());
-        verify(userRepository).save(testUser);
+        verify(userRepository).insertIfAbsent(testUser.getName());
+        verify(userRepository, never()).findByName(any());
     }
 
     @Test
     void save_ShouldFail_WhenUserWithSameNameExists() {
-        when(userRepository.findByName(testUser.getName()))
-                .thenReturn(Mono.just(existingUser));
-        when(userRepository.save(any(User.class)))
-                .thenReturn(Mono.just(existingUser));
+        when(userRepository.insertIfAbsent(testUser.getName()))
+                .thenReturn(Mono.empty());
 
         StepVerifier.create(userService.save(testUser))
                 .expectError(DataIntegrityViolationException.class)
                 .verify();
 
-        verify(userRepository).findByName(testUser.getName());
+        verify(userRepository, never()).save(any(User.class));
     }
 
     @Test